@@ -23,20 +23,24 @@ package dtu.compute.RoborallyClient;
 
 import com.google.gson.*;
 import dtu.compute.RoborallyClient.controller.AppController;
+import dtu.compute.RoborallyClient.controller.LobbyDirectory;
+import dtu.compute.RoborallyClient.controller.PollScheduler;
 import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
-import dtu.compute.RoborallyClient.online.RequestCenter;
-import dtu.compute.RoborallyClient.online.Response;
 import dtu.compute.RoborallyClient.view.BoardView;
+import dtu.compute.RoborallyClient.view.ImageCache;
+import dtu.compute.RoborallyClient.view.LobbyBrowserView;
 import dtu.compute.RoborallyClient.view.MenuButtons;
+import dtu.compute.RoborallyClient.view.RenderStats;
 import dtu.compute.RoborallyClient.view.RoboRallyMenuBar;
+import dtu.compute.RoborallyClient.view.SpaceView;
 import javafx.application.Application;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
 import javafx.geometry.Rectangle2D;
+import javafx.scene.Cursor;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
-import javafx.scene.effect.DropShadow;
 import javafx.scene.image.Image;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
@@ -51,13 +55,6 @@ import javafx.scene.control.Button;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.io.IOException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-
-import static dtu.compute.RoborallyClient.online.ResourceLocation.lobbyStatePath;
-import static dtu.compute.RoborallyClient.online.ResourceLocation.makeUri;
 
 /**
  * ...
@@ -80,10 +77,10 @@ public class RoboRallyClient extends Application {
     private VBox gameRoot;
     private static TilePane menuPane;
     private static TilePane lobbyPane;
-    private static GridPane joinPane;
+    private static Background joinBackground;
     private static Scene scene;
 
-    private ScheduledExecutorService executorService;
+    private volatile PollScheduler pollScheduler;
     private BoardView boardView;
     private GameTemplate gameState;
     private String lastUpdate; // timestamp of last gameState update
@@ -105,6 +102,12 @@ public class RoboRallyClient extends Application {
         double screenHeight = screenBounds.getHeight();
 
         appController = new AppController(this);
+        // show a busy cursor while the server has not answered an action of the player
+        appController.getActions().pendingProperty().addListener((observable, oldValue, newValue) -> {
+            if (stage.getScene() != null) {
+                stage.getScene().setCursor(newValue.intValue() > 0 ? Cursor.WAIT : Cursor.DEFAULT);
+            }
+        });
 
         // create the primary scene with a menu bar and a pane for
         // the board view (which initially is empty); it will be filled
@@ -120,7 +123,6 @@ public class RoboRallyClient extends Application {
         menuPane.getChildren().add(menuButtons.exitGameButton);
         menuPane.getChildren().add(menuButtons.ruleButton);
         lobbyPane = new TilePane(Orientation.VERTICAL);
-        joinPane = new GridPane();
 
         //style for the menu
         menuPane.setAlignment(Pos.CENTER);
@@ -131,12 +133,8 @@ public class RoboRallyClient extends Application {
         lobbyPane.setVgap(15);
         lobbyPane.setPadding(new Insets(10));
 
-        joinPane.setAlignment(Pos.TOP_LEFT);
-        joinPane.setVgap(10);
-        joinPane.setHgap(80);
-
         //Menu Background image
-        Image menu = new Image("images/RoboRallyBackground.png");
+        Image menu = ImageCache.get("images/RoboRallyBackground.png");
         BackgroundImage backgroundMenu = new BackgroundImage(
                 menu, BackgroundRepeat.NO_REPEAT, BackgroundRepeat.NO_REPEAT,
                 BackgroundPosition.DEFAULT,
@@ -145,7 +143,7 @@ public class RoboRallyClient extends Application {
         menuPane.setBackground(new Background(backgroundMenu));
 
         //Lobby Background image
-        Image lobby = new Image("images/empty.png");
+        Image lobby = ImageCache.get("images/empty.png");
         BackgroundImage backgroundLobby = new BackgroundImage(
                 lobby, BackgroundRepeat.REPEAT, BackgroundRepeat.REPEAT,
                 BackgroundPosition.CENTER,
@@ -154,13 +152,13 @@ public class RoboRallyClient extends Application {
         lobbyPane.setBackground(new Background(backgroundLobby));
 
         //Lobbies Background image
-        Image lobbies = new Image("images/RoboRallyLobbyBackground.png");
+        Image lobbies = ImageCache.get("images/RoboRallyLobbyBackground.png");
         BackgroundImage backgroundLobbies = new BackgroundImage(
                 lobbies, BackgroundRepeat.REPEAT, BackgroundRepeat.REPEAT,
                 BackgroundPosition.CENTER,
                 new BackgroundSize(100, 100, true, true, true, true)
         );
-        joinPane.setBackground(new Background(backgroundLobbies));
+        joinBackground = new Background(backgroundLobbies);
 
         scene = new Scene(menuPane, screenWidth/1.5, screenHeight/1.5);
         stage.setScene(scene);
@@ -168,9 +166,10 @@ public class RoboRallyClient extends Application {
         stage.setOnCloseRequest(
                 e -> {
                     e.consume();
-                    if (lobbyId != null) {appController.leaveLobby();}
+                    appController.leaveLobby().whenComplete((left, error) -> {
                         if (poll) {suspendPolling();}
-                    appController.exit();}
+                        appController.exit();
+                    });}
         );
         stage.setResizable(true);
         stage.setMaximized(false);
@@ -178,15 +177,26 @@ public class RoboRallyClient extends Application {
     }
 
     public void suspendPolling() {
-        executorService.shutdown();
+        appController.closeGameStateChannel();
+        if (pollScheduler != null) pollScheduler.stop();
     }
     /**
      * This appoach must change if the timer is implemented.
      * Client will not start polling the server until they click the "Finish Programming" button.
+     * The game state is pushed by the server when possible; polling is only used as a fallback.
      */
     public void startPolling() {
-        executorService = Executors.newSingleThreadScheduledExecutor();
-        executorService.scheduleAtFixedRate(appController::pollServer, 0, 500, TimeUnit.MILLISECONDS);
+        pollScheduler = new PollScheduler(appController::pollServer, this::getGameState, this::getPlayerName);
+        appController.subscribeToGameState(pollScheduler::start);
+    }
+
+    /**
+     * Asks for a game state update right away, e.g. after the player has acted.
+     * Does nothing while updates are pushed by the server.
+     */
+    public void pollNow() {
+        PollScheduler scheduler = pollScheduler;
+        if (scheduler != null) scheduler.pollNow();
     }
 
     public void displayWinner() {
@@ -199,6 +209,11 @@ public class RoboRallyClient extends Application {
     }
 
     public void createLobbyView() {
+        // decode the board images while waiting for the game to start
+        Thread preloader = new Thread(SpaceView::preloadImages, "image-preloader");
+        preloader.setDaemon(true);
+        preloader.start();
+
         boardRoot.getChildren().clear();
         lobbyPane.getChildren().clear();
         stage.setMaximized(false);
@@ -225,85 +240,24 @@ public class RoboRallyClient extends Application {
         scene.setRoot(lobbyPane);
     }
 
-    public void createJoinView(Response<String> lobbies) throws IOException, InterruptedException {
+    /**
+     * Shows the lobby browser with the lobbies of the given directory.
+     */
+    public void createJoinView(LobbyDirectory lobbies) {
         boardRoot.getChildren().clear();
         lobbyPane.getChildren().clear();
-        joinPane.getChildren().clear();
         stage.setMaximized(false);
-        DropShadow dropShadow = new DropShadow();
-        dropShadow.setOffsetX(2.0);
-        dropShadow.setOffsetY(2.0);
-        dropShadow.setColor(Color.BLACK); // Shadow color
-
-
-        Gson gson = new Gson();
-        String jsonString = lobbies.getItem();
-        JsonObject jsonObject = gson.fromJson(jsonString, JsonObject.class);
 
-        JsonArray lobbiesArray = jsonObject.getAsJsonArray("lobbies");
-
-
-        int row = 5;
-        int column = 1;
-        for (int i = 0; i < lobbiesArray.size(); i++) {
-            String lobbyId = lobbiesArray.get(i).getAsString();
-
-            Response<JsonObject> response = RequestCenter.getRequestJson(makeUri(lobbyStatePath(lobbyId)));
-            JsonObject json = response.getItem();
-            JsonArray players = json.get("players").getAsJsonArray();
-
-            Text lobbyText = new Text("LobbyId: " + lobbyId);
-            lobbyText.setFont(Font.font("Arial", FontWeight.EXTRA_BOLD, 25));
-            lobbyText.setEffect(dropShadow);
-            lobbyText.setFill(Color.WHITE);
-            joinPane.add(lobbyText, column, row);
-            row += 1;
-            StringBuilder playerTextBuilder = new StringBuilder();
-            playerTextBuilder.append("Players:");
-
-            for (int x = 0; x < players.size(); x++) {
-                playerTextBuilder.append("\nPlayer ").append(x + 1).append(": ").append(players.get(x).getAsString());
-            }
-            // Add lobby capacity information
-            playerTextBuilder.append("\n").append(players.size()).append("/6");
-
-            // Create and add the player text
-            Text playerText = new Text(playerTextBuilder.toString());
-            playerText.setFont(Font.font("Arial", FontWeight.EXTRA_BOLD, 20));
-            playerText.setEffect(dropShadow);
-            playerText.setFill(Color.WHITE);
-            joinPane.add(playerText, column, row);
-            row += 1;
-            Button joinBtn = new Button("join Lobby");
-            joinBtn.addEventHandler(MouseEvent.MOUSE_CLICKED, e -> appController.joinLobby(lobbyId));
-            joinPane.add(joinBtn, column, row);
-            row -= 2;
-            column += 1;
-            if (column == 5) {
-                column = 1;
-                row += 5;
-            }
-
-        }
-
-        Button leaveBtn = new Button("Back to menu");
-        leaveBtn.addEventHandler(MouseEvent.MOUSE_CLICKED, e -> stage.setScene(scene));
-        StackPane stackPane = new StackPane();
-        stackPane.getChildren().add(joinPane);
-        stackPane.getChildren().add(leaveBtn);
-
-        // Position the button to middle
-        stackPane.widthProperty().addListener((obs, oldWidth, newWidth) -> {
-            leaveBtn.setLayoutX(newWidth.doubleValue() - leaveBtn.getWidth() - 10);
-        });
-        stackPane.heightProperty().addListener((obs, oldHeight, newHeight) -> {
-            leaveBtn.setLayoutY(newHeight.doubleValue() - leaveBtn.getHeight() - 10);
+        LobbyBrowserView browser = new LobbyBrowserView(appController, lobbies, () -> {
+            lobbies.close();
+            stage.setScene(scene);
         });
+        browser.setBackground(joinBackground);
 
         Rectangle2D screenBounds = Screen.getPrimary().getVisualBounds();
         double screenWidth = screenBounds.getWidth();
         double screenHeight = screenBounds.getHeight();
-        Scene sceneLobby = new Scene(stackPane, screenWidth/1.5, screenHeight/1.5);
+        Scene sceneLobby = new Scene(browser, screenWidth/1.5, screenHeight/1.5);
         stage.setScene(sceneLobby);
         stage.show();
     }
@@ -341,8 +295,13 @@ public class RoboRallyClient extends Application {
 
         if (gameState != null) {
             // create and add view for new board
+            long start = System.nanoTime();
             boardView = new BoardView(appController, gameState, this);
+            System.out.println(boardView.getRenderMode() + " board view created in " + (System.nanoTime() - start) / 1_000_000 + " ms (images: "
+                    + ImageCache.getHitCount() + " hits, " + ImageCache.getMissCount() + " misses, "
+                    + ImageCache.getDecodeMillis() + " ms decoding)");
             boardRoot.setCenter(boardView);
+            RenderStats.attach(scene, boardView);
             //boardView.updateView(gameState.board); // TODO figure out what to do
             scene.setRoot(gameRoot);
             updateBoardView(gameState);
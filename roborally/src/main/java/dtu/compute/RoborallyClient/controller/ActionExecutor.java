@@ -0,0 +1,123 @@
+package dtu.compute.RoborallyClient.controller;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the requests of player actions (moving cards, creating or saving a game, ...) on a small
+ * pool of background threads, so the JavaFX Application Thread does not wait for the server.
+ * The futures returned complete on the JavaFX Application Thread, so the view can be updated
+ * directly in their continuations. While actions are in flight {@link #pendingProperty()} is
+ * above zero, which the client shows as a busy cursor.
+ * For every action it logs the time spent in the background and on the JavaFX Application Thread.
+ * The continuations must not open modal dialogs with showAndWait, since the time the dialog is
+ * open would be counted as time the JavaFX Application Thread was blocked.
+ */
+public class ActionExecutor {
+
+    private static final int THREADS = 4;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "action-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ReadOnlyIntegerWrapper pending = new ReadOnlyIntegerWrapper();
+    private final AtomicLong actionCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong backgroundNanos = new AtomicLong();
+    private final AtomicLong fxNanos = new AtomicLong();
+
+    /**
+     * Runs a blocking action in the background. Must be called on the JavaFX Application Thread.
+     * @param name the name of the action, for the log
+     * @return the result of the action, completed on the JavaFX Application Thread
+     */
+    public <T> CompletableFuture<T> submit(String name, Callable<T> action) {
+        long start = System.nanoTime();
+        CompletableFuture<T> request = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                request.complete(action.call());
+            } catch (Throwable e) {
+                request.completeExceptionally(e);
+            }
+        });
+        return track(name, request, start);
+    }
+
+    /**
+     * Tracks an action which is already running asynchronously, e.g. a request sent with
+     * one of the asynchronous methods of the RequestCenter. Must be called on the JavaFX Application Thread.
+     * @param name the name of the action, for the log
+     * @return the result of the action, completed on the JavaFX Application Thread
+     */
+    public <T> CompletableFuture<T> track(String name, CompletableFuture<T> request) {
+        return track(name, request, System.nanoTime());
+    }
+
+    private <T> CompletableFuture<T> track(String name, CompletableFuture<T> request, long start) {
+        pending.set(pending.get() + 1);
+        actionCount.incrementAndGet();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        request.whenComplete((value, e) -> {
+            long background = System.nanoTime() - start;
+            backgroundNanos.addAndGet(background);
+            Platform.runLater(() -> {
+                long fxStart = System.nanoTime();
+                pending.set(pending.get() - 1);
+                if (e != null) {
+                    failureCount.incrementAndGet();
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(value);
+                }
+                long fx = System.nanoTime() - fxStart;
+                fxNanos.addAndGet(fx);
+                System.out.println(name + ": " + background / 1_000_000 + " ms in the background, "
+                        + fx / 1_000_000 + " ms on the JavaFX thread" + (e != null ? " (failed: " + e + ")" : ""));
+            });
+        });
+        return result;
+    }
+
+    /**
+     * @return the number of actions in flight; only changes on the JavaFX Application Thread
+     */
+    public ReadOnlyIntegerProperty pendingProperty() {
+        return pending.getReadOnlyProperty();
+    }
+
+    public long getActionCount() {
+        return actionCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * @return the time actions spent waiting for the server, in milliseconds
+     */
+    public long getBackgroundMillis() {
+        return backgroundNanos.get() / 1_000_000;
+    }
+
+    /**
+     * @return the time the JavaFX Application Thread was blocked handling the results of actions, in milliseconds,
+     * i.e. running the continuations of the futures returned
+     */
+    public long getFxBlockedMillis() {
+        return fxNanos.get() / 1_000_000;
+    }
+}
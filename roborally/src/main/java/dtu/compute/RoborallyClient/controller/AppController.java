@@ -22,23 +22,29 @@
 package dtu.compute.RoborallyClient.controller;
 
 import com.google.gson.*;
-import dtu.compute.RoborallyClient.fileaccess.model.SpaceTemplate;
-import dtu.compute.RoborallyClient.model.Heading;
-import dtu.compute.RoborallyClient.view.SpaceView;
-import dtu.compute.RoborallyClient.fields.FieldAction;
+import dtu.compute.RoborallyClient.view.LaserOverlay;
+import dtu.compute.RoborallyClient.view.RenderBarrier;
 import dtu.compute.designpatterns.observer.Observer;
 import dtu.compute.designpatterns.observer.Subject;
 
-import dtu.compute.RoborallyClient.fileaccess.Adapter;
+import dtu.compute.RoborallyClient.fileaccess.BoardCache;
+import dtu.compute.RoborallyClient.fileaccess.TemplateAdapters;
 import dtu.compute.RoborallyClient.fileaccess.LoadSave;
 import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
 import dtu.compute.RoborallyClient.fileaccess.model.PlayerTemplate;
 import dtu.compute.RoborallyClient.model.Command;
+import dtu.compute.RoborallyClient.online.GameStateChannel;
+import dtu.compute.RoborallyClient.online.GameStateDecoder;
+import dtu.compute.RoborallyClient.online.GameStateDelta;
+import dtu.compute.RoborallyClient.online.GameStateUpdate;
+import dtu.compute.RoborallyClient.online.LongPoll;
 import dtu.compute.RoborallyClient.online.RequestCenter;
 import dtu.compute.RoborallyClient.RoboRallyClient;
 
 import dtu.compute.RoborallyClient.online.ResourceLocation;
 import dtu.compute.RoborallyClient.online.Response;
+import dtu.compute.RoborallyClient.online.ServerPool;
+import dtu.compute.RoborallyClient.online.Session;
 import dtu.compute.RoborallyClient.view.UpgradeCardFieldView;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -51,7 +57,14 @@ import lombok.Getter;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * ...
@@ -62,250 +75,481 @@ import java.util.*;
 public class AppController implements Observer {
 
     final private List<Integer> PLAYER_NUMBER_OPTIONS = Arrays.asList(2, 3, 4, 5, 6);
+    final private static Duration POLL_TIMEOUT = Duration.ofSeconds(5);
+    final private static Duration ACTION_TIMEOUT = Duration.ofSeconds(10);
+    final private static Duration LOBBY_POLL_INTERVAL = Duration.ofMillis(500);
+    final private static Duration GAME_POLL_INTERVAL = Duration.ofSeconds(1);
+    final private static boolean DELTA_SYNC = Boolean.parseBoolean(System.getProperty("roborally.deltaSync", "true"));
 
     @Getter
     final private RoboRallyClient client;
+    @Getter
+    final private UiDispatcher uiDispatcher = new UiDispatcher();
+    @Getter
+    final private RenderBarrier renderBarrier = new RenderBarrier();
+    @Getter
+    final private ActionExecutor actions = new ActionExecutor();
+    @Getter
+    final private LobbyDirectory lobbyDirectory;
+    /** The lobby and player of this client, or null while it is not in a lobby. */
+    @Getter
+    private volatile Session session;
     private volatile Thread waitForPlayers;
     private volatile Thread waitForGame;
+    private volatile GameStateChannel gameStateChannel;
+    private volatile Response<?> lastGameStateValidators;
+    private volatile boolean snapshotRequired;
     private final Gson gson;
+    private final AtomicBoolean pollInFlight = new AtomicBoolean(false);
 
     public AppController(@NotNull RoboRallyClient client) {
         this.client = client;
 
         GsonBuilder simpleBuilder = new GsonBuilder().
-                registerTypeAdapter(FieldAction.class, new Adapter<FieldAction>()).
+                registerTypeAdapterFactory(new TemplateAdapters()).
                 setPrettyPrinting();
         gson = simpleBuilder.create();
+        lobbyDirectory = new LobbyDirectory(actions, gson);
     }
 
-    public void pollServer() {
+    /**
+     * Fetches the current game state without blocking the calling thread. A poll is skipped
+     * while the previous one is still in flight, so slow responses do not pile up requests.
+     * @return a future completing with true if a new game state was applied
+     */
+    public CompletableFuture<Boolean> pollServer() {
         System.out.println("Polling server");
-        if (client.getLobbyId() == null) {
-            return;
+        Session session = this.session;
+        if (session == null) {
+            return CompletableFuture.completedFuture(false);
         }
-        try {
-            client.setPoll(true);
-            Response<JsonObject> response = RequestCenter.getRequestJson(ResourceLocation.makeUri(ResourceLocation.gameStatePath(client.getLobbyId())+"/"+client.getPlayerName()));
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                System.out.println("Error: " + response.getStatusCode());
-                return;
-            }
-            JsonObject gameStateJson = response.getItem().getAsJsonObject();
-            GsonBuilder simpleBuilder = new GsonBuilder().
-                    registerTypeAdapter(FieldAction.class, new Adapter<FieldAction>()).
-                    setPrettyPrinting().setLenient();
-            Gson gson = simpleBuilder.create();
-            GameTemplate gameState = gson.fromJson(gameStateJson.get("gameState").getAsString(), GameTemplate.class);
-            if (gameState == null || client.getBoardView() == null) return;
-            if (!gameState.timeStamp.equals(client.getLastUpdate())) {
-                client.setGameState(gameState);
-                Platform.runLater(() -> client.updateBoardView(client.getGameState()));
-                client.setLastUpdate(gameState.timeStamp);
-            }
-            /*if (!(gameState.playPhase == Phase.ACTIVATION.ordinal() || gameState.playPhase == Phase.UPGRADE.ordinal())) suspendPolling();*/
-
-            JsonArray lasers = gameStateJson.get("lasers").getAsJsonArray();
-            if (lasers.size() == 0) SpaceView.destroyLasers();
-            gameState = client.getGameState();
-            for (JsonElement laser : lasers) {
-                JsonObject laserObj = laser.getAsJsonObject();
-                JsonArray LOS = laserObj.get("LOS").getAsJsonArray();
-                int heading = laserObj.get("heading").getAsInt();
-
-                List<SpaceTemplate> spaces = new ArrayList<>();
-                for (JsonElement los : LOS) {
-                    JsonObject spaceObject = los.getAsJsonObject();
-                    int x = spaceObject.get("x").getAsInt();
-                    int y = spaceObject.get("y").getAsInt();
-
-                    spaces.add(gameState.board.spaces.get(x * gameState.board.height + y));
-                }
-                while (client.getBoardView().getSpaces()[gameState.board.height-1][gameState.board.width-1].gameState != gameState) {
-                    Thread.sleep(100);
-                }
-                Platform.runLater(() -> SpaceView.drawLaser(spaces, Heading.values()[heading]));
-            }
-            if (gameState.winnerName != null) {
-                client.suspendPolling();
-                Platform.runLater(client::displayWinner);
-            }
-        } catch (IOException | InterruptedException e) {
-            System.out.println("Error in polling server: " + e.getMessage());
-            throw new RuntimeException(e);
+        if (!pollInFlight.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(false);
         }
+        client.setPoll(true);
+        return fetchGameState(session, false)
+                .thenCompose(response -> resolveGameState(response.getItem())
+                        ? CompletableFuture.completedFuture(response)
+                        : fetchSnapshot(session))
+                .thenApply(this::handleGameState)
+                .whenComplete((changed, e) -> {
+                    pollInFlight.set(false);
+                    if (e != null) System.out.println("Error in polling server: " + e.getMessage());
+                });
     }
 
+    /**
+     * Fetches the game state. Unless a snapshot is asked for, the request names the version and the
+     * board held by the client, so the server may answer with a {@link GameStateDelta} to it and leave out the board.
+     * @param snapshot true to fetch the full game state unconditionally
+     */
+    private CompletableFuture<Response<GameStateUpdate>> fetchGameState(Session session, boolean snapshot) {
+        if (snapshot) {
+            return RequestCenter.getGameStateAsync(session.getGameStateUri(), null, POLL_TIMEOUT, gson);
+        }
+        GameTemplate gameState = client.getGameState();
+        String since = null;
+        if (DELTA_SYNC && !snapshotRequired && gameState != null && gameState.timeStamp != null) {
+            since = gameState.timeStamp;
+        }
+        return RequestCenter.getGameStateAsync(session.getGameStateUri(since, cachedBoardHash()), gameStateValidators(), POLL_TIMEOUT, gson);
+    }
 
-    public void newLobby() {
-        TextInputDialog nameInput = new TextInputDialog();
-        nameInput.setTitle("Player name");
-        nameInput.setHeaderText("Please state your name");
-        Optional<String> name = nameInput.showAndWait();
-
-        try {
-            if (name.isEmpty()) {
-                return;
-            }
-            while (name.get().trim().isEmpty()) {
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText("You must enter a name");
-                alert.showAndWait();
-
-                name = nameInput.showAndWait();
-                if (name.isEmpty()) {
-                    return;
-                }
+    /**
+     * Fetches the full game state after a delta or the cached board could not be used. The snapshot is
+     * resolved like any other game state, so its board is cached and the next poll asks for a delta again.
+     */
+    private CompletableFuture<Response<GameStateUpdate>> fetchSnapshot(Session session) {
+        return fetchGameState(session, true).thenApply(response -> {
+            if (!resolveGameState(response.getItem())) {
+                System.out.println("Full game state could not be resolved");
             }
-            Map<String, Object> playerName = Map.of("playerName", name.get());
-            Response<String> lobbyResponse = RequestCenter.postRequest(ResourceLocation.makeUri(ResourceLocation.lobbies), playerName);
-            if (!lobbyResponse.getStatusCode().is2xxSuccessful()) {
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText(lobbyResponse.getItem());
-                alert.showAndWait();
-                return;
+            return response;
+        });
+    }
+
+    /**
+     * @return the hash of the board held by the client for a game state request, or null if the board is not cached
+     */
+    private String cachedBoardHash() {
+        GameTemplate gameState = client.getGameState();
+        if (snapshotRequired || gameState == null || !BoardCache.contains(gameState.mapName, gameState.boardHash)) {
+            return null;
+        }
+        return gameState.boardHash;
+    }
+
+    /**
+     * Replaces a delta in the update by the game state it leads to, and binds the board of the game state to the cached board.
+     * @return false if the delta could not be applied or the board is not cached, so the full game state has to be fetched
+     */
+    private boolean resolveGameState(GameStateUpdate update) {
+        if (update == null) return true;
+        if (update.delta != null) {
+            GameTemplate gameState = GameStateDelta.apply(client.getGameState(), update.delta);
+            if (gameState == null) {
+                System.out.println("Game state delta rejected, fetching the full game state");
+                snapshotRequired = true;
+                return false;
             }
-            client.setLobbyId(lobbyResponse.getItem());
-            client.setPlayerName(name.get());
-            client.createLobbyView();
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
+            update.gameState = gameState;
+        } else if (update.gameState != null) {
+            snapshotRequired = false;
+        }
+        if (!BoardCache.bind(update.gameState)) {
+            System.out.println("Board " + update.gameState.boardHash + " not cached, fetching the full game state");
+            snapshotRequired = true;
+            return false;
+        }
+        return true;
+    }
+
+    private boolean handleGameState(Response<GameStateUpdate> response) {
+        if (response.isNotModified()) {
+            return false;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            System.out.println("Error: " + response.getStatusCode());
+            return false;
         }
+        boolean changed = applyGameState(response.getItem());
+        // only remember the version once it has been handed to the view, otherwise it would never be fetched again
+        if (client.getBoardView() != null) {
+            lastGameStateValidators = response.hasValidators() ? response.validators() : null;
+        }
+        return changed;
+    }
 
-        startWaitingForPlayers();
-        startWaitingForGame();
+    /**
+     * The validators for the next conditional game state request. These are the ETag and Last-Modified
+     * headers of the last response, or the time stamp of the last game state if the server sent neither.
+     */
+    private Response<?> gameStateValidators() {
+        if (lastGameStateValidators != null) {
+            return lastGameStateValidators;
+        }
+        if (client.getLastUpdate() != null) {
+            return Response.ofValidators("\"" + client.getLastUpdate() + "\"", null);
+        }
+        return null;
     }
 
-    public void showLobbies() {
-        try {
-            Response<String> lobbies = RequestCenter.getRequest(ResourceLocation.makeUri(ResourceLocation.lobbies));
-            getClient().createJoinView(lobbies);
-        } catch (IOException | InterruptedException ex) {
-            throw new RuntimeException(ex);
+    /**
+     * Subscribes to the game state pushed by the server. If the server does not offer the
+     * stream, or the connection is lost later on, the fallback is started instead.
+     * @param fallback started once when push updates are not (or no longer) available
+     */
+    public void subscribeToGameState(Runnable fallback) {
+        Session session = this.session;
+        if (session == null) {
+            return;
         }
+        client.setPoll(true);
+        lastGameStateValidators = null;
+        GameStateChannel.open(
+                session.getGameStateStreamUri(),
+                this::applyPushedGameState,
+                () -> {
+                    System.out.println("Game state channel closed, falling back to polling");
+                    gameStateChannel = null;
+                    fallback.run();
+                }).whenComplete((channel, e) -> {
+                    if (e != null) {
+                        System.out.println("Game state channel not available, polling instead");
+                        fallback.run();
+                    } else {
+                        gameStateChannel = channel;
+                        // the stream only carries changes, so fetch the state we may have missed while connecting
+                        pollServer();
+                    }
+                });
     }
 
-    public void joinLobby(String id) {
+    public void closeGameStateChannel() {
+        GameStateChannel channel = gameStateChannel;
+        gameStateChannel = null;
+        if (channel != null) channel.close();
+    }
+
+    private void applyPushedGameState(String message) {
         try {
-            if (id.isEmpty()) {
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText("No lobbyID given");
-                alert.showAndWait();
+            GameStateUpdate update = GameStateDecoder.decode(new StringReader(message), gson);
+            if (!resolveGameState(update)) {
+                pollServer();
                 return;
             }
-            Response<String> lobbyFull = RequestCenter.getRequest(ResourceLocation.makeUri(ResourceLocation.joinLobbyPath(id)));
-            if (!lobbyFull.getStatusCode().is2xxSuccessful()) {
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText(lobbyFull.getItem());
-                alert.showAndWait();
-                return;
-            }
-            Response<String> lobbyResponse = RequestCenter.getRequest(ResourceLocation.makeUri(ResourceLocation.lobbyPath(id)));
-            if (!lobbyResponse.getStatusCode().is2xxSuccessful() || !lobbyFull.getStatusCode().is2xxSuccessful()) {
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText(lobbyResponse.getItem());
-                alert.showAndWait();
-                return;
-            }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
+            applyGameState(update);
+        } catch (IOException e) {
+            System.out.println("Error in game state channel: " + e.getMessage());
         }
+    }
 
+    /**
+     * @return true if the game state differs from the one shown before
+     */
+    private boolean applyGameState(GameStateUpdate update) {
+        boolean changed = false;
+        GameTemplate gameState = update.gameState;
+        if (gameState == null || client.getBoardView() == null) return false;
+        if (!gameState.timeStamp.equals(client.getLastUpdate())) {
+            changed = true;
+            client.setGameState(gameState);
+            long version = renderBarrier.reserve();
+            uiDispatcher.post(UiDispatcher.Slot.BOARD, () -> {
+                try {
+                    client.updateBoardView(client.getGameState());
+                } finally {
+                    renderBarrier.rendered(version);
+                }
+            });
+            client.setLastUpdate(gameState.timeStamp);
+        }
+        /*if (!(gameState.playPhase == Phase.ACTIVATION.ordinal() || gameState.playPhase == Phase.UPGRADE.ordinal())) suspendPolling();*/
+
+        // the lasers are drawn on the spaces of the state they belong to, so wait until it is shown
+        GameTemplate shownGameState = client.getGameState();
+        renderBarrier.whenRendered(renderBarrier.getReservedVersion()).thenRun(() ->
+                uiDispatcher.post(UiDispatcher.Slot.LASERS, () -> LaserOverlay.show(shownGameState, update.lasers)));
+        if (gameState.winnerName != null) {
+            client.suspendPolling();
+            uiDispatcher.post(UiDispatcher.Slot.WINNER, client::displayWinner);
+        }
+        return changed;
+    }
+
+    /**
+     * Shows an error alert; must be called on the JavaFX Application Thread.
+     * @param message the header text of the alert
+     */
+    private void showError(String message) {
+        Alert alert = new Alert(AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText(message);
+        // not showAndWait, so the continuations of actions showing errors do not block the JavaFX thread
+        alert.show();
+    }
+
+    /**
+     * Logs a request that failed without a response (timeout, connection refused, ...).
+     * @return null, so it can be used directly with {@link java.util.concurrent.CompletableFuture#exceptionally}
+     */
+    private Void logFailure(Throwable e) {
+        System.out.println("Request failed: " + e.getMessage());
+        return null;
+    }
+
+
+    /**
+     * Asks the player for a name until a non-blank one is entered. Called before any request is
+     * sent, so the dialog does not keep the continuation of an action waiting.
+     * @return the name, or empty if the player cancelled
+     */
+    private Optional<String> askPlayerName() {
         TextInputDialog nameInput = new TextInputDialog();
         nameInput.setTitle("Player name");
         nameInput.setHeaderText("Please state your name");
         Optional<String> name = nameInput.showAndWait();
 
-        try {
+        if (name.isEmpty()) {
+            return name;
+        }
+        while (name.get().trim().isEmpty()) {
+            Alert alert = new Alert(AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText("You must enter a name");
+            alert.showAndWait();
+
+            name = nameInput.showAndWait();
             if (name.isEmpty()) {
-                return;
-            }
-            while (name.get().trim().isEmpty()) {
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText("You must enter a name");
-                alert.showAndWait();
-
-                name = nameInput.showAndWait();
-                if (name.isEmpty()) {
-                    return;
-                }
+                return name;
             }
-            Map<String, Object> playerName = Map.of("playerName", name.get());
-            Response<String> joinResponse = RequestCenter.postRequest(ResourceLocation.makeUri(ResourceLocation.joinLobbyPath(id)), playerName);
-            if (!joinResponse.getStatusCode().is2xxSuccessful()) {
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText(joinResponse.getItem());
-                alert.showAndWait();
-                return;
-            }
-            client.setLobbyId(id);
-            client.setPlayerName(name.get());
-            client.createLobbyView();
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
         }
+        return name;
+    }
 
-        startWaitingForPlayers();
-        startWaitingForGame();
+    public void newLobby() {
+        Optional<String> name = askPlayerName();
+        if (name.isEmpty()) {
+            return;
+        }
+        String playerName = name.get();
+        ServerPool.Node server = ServerPool.preferred();
+        actions.submit("newLobby", () -> RequestCenter.postRequest(ResourceLocation.makeUri(server, ResourceLocation.lobbies), Map.of("playerName", playerName)))
+                .thenAccept(lobbyResponse -> {
+                    if (!lobbyResponse.getStatusCode().is2xxSuccessful()) {
+                        showError(lobbyResponse.getItem());
+                        return;
+                    }
+                    lobbyDirectory.invalidateList();
+                    ServerPool.setHome(lobbyResponse.getItem(), ServerPool.servedBy(lobbyResponse, server));
+                    session = new Session(lobbyResponse.getItem(), playerName);
+                    client.setLobbyId(lobbyResponse.getItem());
+                    client.setPlayerName(playerName);
+                    client.createLobbyView();
+                    startWaitingForPlayers();
+                    startWaitingForGame();
+                })
+                .exceptionally(this::logFailure);
     }
 
-    public void leaveLobby() {
-        if (getClient().getLobbyId() == null) return;
-        try {
-            Map<String, Object> playerName = Map.of("playerName", client.getPlayerName());
-            Response<String> response = RequestCenter.postRequest(ResourceLocation.makeUri(ResourceLocation.leaveLobbyPath(client.getLobbyId())), playerName);
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText(response.getItem());
-                alert.showAndWait();
-            }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
+    public void showLobbies() {
+        long start = System.nanoTime();
+        lobbyDirectory.close();
+        client.createJoinView(lobbyDirectory);
+        lobbyDirectory.open(start);
+    }
+
+    public void joinLobby(String id) {
+        if (id.isEmpty()) {
+            showError("No lobbyID given");
+            return;
         }
-        stopWaiting();
-        client.returnToMenu();
+        Optional<String> name = askPlayerName();
+        if (name.isEmpty()) {
+            return;
+        }
+        String playerName = name.get();
+        ServerPool.Node server = ServerPool.homeOf(id);
+        // the checks and the join are one action, so nothing waits on the JavaFX thread in between
+        actions.submit("joinLobby", () -> {
+                    Response<String> lobbyFull = RequestCenter.getRequest(ResourceLocation.makeUri(server, ResourceLocation.joinLobbyPath(id)));
+                    if (!lobbyFull.getStatusCode().is2xxSuccessful()) {
+                        return lobbyFull;
+                    }
+                    Response<String> lobby = RequestCenter.getRequest(ResourceLocation.makeUri(server, ResourceLocation.lobbyPath(id)));
+                    if (!lobby.getStatusCode().is2xxSuccessful()) {
+                        return lobby;
+                    }
+                    return RequestCenter.postRequest(ResourceLocation.makeUri(server, ResourceLocation.joinLobbyPath(id)), Map.of("playerName", playerName));
+                })
+                .thenAccept(joinResponse -> {
+                    if (!joinResponse.getStatusCode().is2xxSuccessful()) {
+                        showError(joinResponse.getItem());
+                        return;
+                    }
+                    lobbyDirectory.close();
+                    lobbyDirectory.invalidate(id);
+                    session = new Session(id, playerName);
+                    client.setLobbyId(id);
+                    client.setPlayerName(playerName);
+                    client.createLobbyView();
+                    startWaitingForPlayers();
+                    startWaitingForGame();
+                })
+                .exceptionally(this::logFailure);
     }
 
+    /**
+     * Leaves the lobby in the background and returns to the menu once the server has answered,
+     * also if the request failed.
+     * @return completes on the JavaFX Application Thread when the client is back in the menu
+     */
+    public CompletableFuture<Void> leaveLobby() {
+        String lobbyId = getClient().getLobbyId();
+        if (lobbyId == null) return CompletableFuture.completedFuture(null);
+        Map<String, Object> playerName = Map.of("playerName", client.getPlayerName());
+        return actions.track("leaveLobby", RequestCenter.postRequestAsync(session.getLeaveLobbyUri(), playerName, ACTION_TIMEOUT))
+                .thenAccept(response -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        showError(response.getItem());
+                    }
+                })
+                .exceptionally(this::logFailure)
+                .thenRun(() -> {
+                    lobbyDirectory.invalidate(lobbyId);
+                    stopWaiting();
+                    session = null;
+                    client.returnToMenu();
+                });
+    }
+
+    /**
+     * Keeps the lobby view up to date with a long poll on the lobby state. The server holds each
+     * request until the lobby changes, so a change is shown right away without polling in a tight loop.
+     */
     private void waitForPlayers() {
         Thread thisThread = Thread.currentThread();
+        Session session = this.session;
+        LongPoll longPoll = new LongPoll(LOBBY_POLL_INTERVAL);
+        JsonObject lobbyContent = null;
         while (waitForPlayers == thisThread) {
+            CompletableFuture<Response<JsonObject>> request = null;
             try {
-                Response<JsonObject> response = RequestCenter.getRequestJson(ResourceLocation.makeUri(ResourceLocation.lobbyStatePath(client.getLobbyId())));
-                client.updateLobbyView(response.getItem());
-            } catch (IOException | InterruptedException e) {
-                throw new RuntimeException(e);
+                long start = System.nanoTime();
+                request = RequestCenter.getRequestJsonAsync(
+                        longPoll.uri(session.getLobbyStateUri(), LongPoll.versionOf(lobbyContent)),
+                        longPoll.timeout());
+                Response<JsonObject> response = request.get();
+                boolean changed = response.getItem() != null && !response.getItem().equals(lobbyContent);
+                if (changed) {
+                    lobbyContent = response.getItem();
+                    JsonObject content = lobbyContent;
+                    uiDispatcher.post(UiDispatcher.Slot.LOBBY, () -> client.updateLobbyView(content));
+                }
+                Thread.sleep(longPoll.delayAfter(changed, start));
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof HttpTimeoutException)) {
+                    System.out.println("Error waiting for players: " + e.getCause().getMessage());
+                    if (!sleepQuietly(longPoll.delayAfterFailure())) break;
+                }
+            } catch (InterruptedException e) {
+                if (request != null) request.cancel(true);
+                break;
             }
         }
         System.out.println("Thread has stopped");
     }
 
+    /**
+     * Waits for the host to start the game with a long poll on the game state, which
+     * the server only answers successfully once the game exists.
+     */
     private void waitForGame() {
         Thread thisThread = Thread.currentThread();
+        Session session = this.session;
+        LongPoll longPoll = new LongPoll(GAME_POLL_INTERVAL);
         while (waitForGame == thisThread) {
+            CompletableFuture<Response<GameStateUpdate>> request = null;
             try {
-                Thread.sleep(2000);
-                Response<JsonObject> response = RequestCenter.getRequestJson(ResourceLocation.makeUri(
-                        ResourceLocation.gameStatePath(client.getLobbyId())+"/"+ client.getPlayerName()));
-                if (!response.getStatusCode().is2xxSuccessful()) {
+                long start = System.nanoTime();
+                request = RequestCenter.getGameStateAsync(
+                        longPoll.uri(session.getGameStateUri(), null),
+                        null, longPoll.timeout(), gson);
+                Response<GameStateUpdate> response = request.get();
+                if (!response.getStatusCode().is2xxSuccessful() || response.getItem().gameState == null) {
+                    Thread.sleep(longPoll.delayAfter(false, start));
                     continue;
                 }
-                GameTemplate gameState = gson.fromJson(response.getItem().getAsJsonObject().get("gameState").getAsString(), GameTemplate.class);
+                GameTemplate gameState = response.getItem().gameState;
+                BoardCache.bind(gameState);
 
                 Platform.runLater(() -> startGame(gameState));
-            } catch (IOException | InterruptedException e) {
-                throw new RuntimeException(e);
+                break;
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof HttpTimeoutException)) {
+                    System.out.println("Error waiting for game: " + e.getCause().getMessage());
+                    if (!sleepQuietly(longPoll.delayAfterFailure())) break;
+                }
+            } catch (InterruptedException e) {
+                if (request != null) request.cancel(true);
+                break;
             }
         }
         System.out.println("Thread has stopped");
     }
 
+    /**
+     * @return false if the thread was interrupted while sleeping
+     */
+    private boolean sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
     public void startWaitingForPlayers() {
         if (waitForPlayers == null) {
             waitForPlayers = new Thread(this::waitForPlayers);
@@ -323,6 +567,7 @@ public class AppController implements Observer {
         if (waitForPlayers != null) {
             Thread tempThread = waitForPlayers;
             waitForPlayers = null;
+            tempThread.interrupt(); // cancels the long poll in flight
             try {
                 tempThread.join();
             } catch (InterruptedException e) {
@@ -332,6 +577,7 @@ public class AppController implements Observer {
         if (waitForGame != null) {
             Thread tempThread = waitForGame;
             waitForGame = null;
+            tempThread.interrupt(); // cancels the long poll in flight
             try {
                 tempThread.join();
             } catch (InterruptedException e) {
@@ -342,6 +588,9 @@ public class AppController implements Observer {
 
     public void startGame(GameTemplate gameState) {
         stopWaiting();
+        if (session != null && !session.bindPlayer(gameState)) {
+            System.out.println("Player " + session.getPlayerName() + " not found in the game");
+        }
         if (client.getBoardView() == null) client.createBoardView(gameState);
     }
 
@@ -353,29 +602,33 @@ public class AppController implements Observer {
         if (mapName.isEmpty()) {
             return;
         }
-        try {
-            JsonObject info = new JsonObject();
-            info.addProperty("mapName", mapName.get());
-            info.addProperty("playerName", client.getPlayerName());
-
-            Response<JsonObject> response = RequestCenter.postRequestJson(ResourceLocation.makeUri(ResourceLocation.gamePath(client.getLobbyId())), info);
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText(response.getItem().getAsJsonObject().get("info").getAsString());
-                alert.showAndWait();
-            } else {
-                GameTemplate gameState = gson.fromJson(response.getItem().getAsJsonObject().get("gameState").getAsString(), GameTemplate.class);
-                startGame(gameState);
-            }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        JsonObject info = new JsonObject();
+        info.addProperty("mapName", mapName.get());
+        info.addProperty("playerName", client.getPlayerName());
+
+        actions.track("createGame", RequestCenter.postGameStateAsync(session.getGameUri(), info, ACTION_TIMEOUT, gson)
+                        .thenApply(response -> {
+                            if (response.getStatusCode().is2xxSuccessful()) {
+                                BoardCache.bind(response.getItem().gameState);
+                            }
+                            return response;
+                        }))
+                .thenAccept(response -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        showError(response.getItem().info);
+                    } else {
+                        startGame(response.getItem().gameState);
+                    }
+                })
+                .exceptionally(this::logFailure);
     }
 
+    /**
+     * Moves a card of the player, if the move is possible in the game state shown. The move is sent
+     * to the server in the background; if the server rejects it, the game state is fetched again.
+     * @return false if the move is not possible
+     */
     public boolean moveCards(@NotNull String source, @NotNull String target, PlayerTemplate player) {
-        GameTemplate gameState;
-
         int sourceIndex = Integer.parseInt(source.split(",")[1]);
         boolean sourceIsProgrammingCard = source.split(",")[0].equals("P");
         int targetIndex = Integer.parseInt(target.split(",")[1]);
@@ -391,197 +644,156 @@ public class AppController implements Observer {
         info.addProperty("sourceIsProgram", sourceIsProgrammingCard);
         info.addProperty("targetIsProgram", targetIsProgrammingCard);
         info.addProperty("playerName", client.getPlayerName());
-        try {
-            Response<JsonObject> response = RequestCenter.postRequestJson(ResourceLocation.makeUri(ResourceLocation.playerCardMovementPath(client.getLobbyId(), player.id)), info);
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText(response.getItem().getAsString());
-                alert.showAndWait();
-                return false;
-            } else {
-                gameState = gson.fromJson(response.getItem().getAsJsonObject().get("gameState").getAsString(), GameTemplate.class);
-            }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-
-        client.updateBoardView(gameState);
+        URI location = player.id == session.getPlayerId()
+                ? session.getCardMovementUri(cachedBoardHash())
+                : ResourceLocation.makeUri(session.getHome(), ResourceLocation.playerCardMovementPath(session.getLobbyId(), player.id));
+        actions.track("moveCards", RequestCenter.postGameStateAsync(location, info, ACTION_TIMEOUT, gson)
+                        .thenApply(response -> {
+                            // resolving a delta may read the board cache from disk, so not on the JavaFX thread
+                            if (response.getStatusCode().is2xxSuccessful() && response.getItem() != null
+                                    && !resolveGameState(response.getItem())) {
+                                response.getItem().gameState = null;
+                            }
+                            return response;
+                        }))
+                .thenAccept(response -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        // the card is shown moved already, so show the last state again
+                        client.updateBoardView(client.getGameState());
+                        showError(response.getItem() != null ? response.getItem().info : null);
+                    } else if (response.getItem() == null || response.getItem().gameState == null) {
+                        // the cards were moved, the new state comes with the next poll
+                        client.pollNow();
+                    } else {
+                        client.updateBoardView(response.getItem().gameState);
+                    }
+                })
+                .exceptionally(e -> {
+                    logFailure(e);
+                    client.updateBoardView(client.getGameState());
+                    return null;
+                });
         return true;
     }
 
-    public boolean sendReadySignal() {
-        try {
-            GameTemplate gameState = client.getGameState();
-            int playerId = -1;
-            for (int i = 0; i < gameState.players.size(); i++) {
-                if (gameState.players.get(i).name.equals(client.getPlayerName())) {
-                    playerId = i;
-                    break;
-                }
-            }
-            Response<String> response = RequestCenter.getRequest(ResourceLocation.makeUri(ResourceLocation.playerReadyPath(client.getLobbyId(), playerId)));
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText(response.getItem());
-                alert.showAndWait();
-                return false;
-            }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-        return true;
+    /**
+     * Tells the server the player has finished programming.
+     * @return completes on the JavaFX Application Thread with false if the server did not accept it
+     */
+    public CompletableFuture<Boolean> sendReadySignal() {
+        return actions.track("sendReadySignal", RequestCenter.getRequestAsync(session.getReadyUri(), ACTION_TIMEOUT))
+                .thenApply(response -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        showError(response.getItem());
+                        return false;
+                    }
+                    client.pollNow();
+                    return true;
+                })
+                .exceptionally(e -> {
+                    logFailure(e);
+                    return false;
+                });
     }
 
     public void sendChoice(Command command) {
-        GameTemplate gameState = client.getGameState();
-        int playerId = -1;
-        for (int i = 0; i < gameState.players.size(); i++) {
-            if (gameState.players.get(i).name.equals(client.getPlayerName())) {
-                playerId = i;
-                break;
-            }
-        }
-        try {
-            Map<String, Object> args = Map.of("command", command.ordinal());
-            Response<String> response = RequestCenter.postRequest(ResourceLocation.makeUri(ResourceLocation.playerChoicePath(client.getLobbyId(), playerId)), args);
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText(response.getItem());
-                alert.showAndWait();
-            }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        Map<String, Object> args = Map.of("command", command.ordinal());
+        actions.track("sendChoice", RequestCenter.postRequestAsync(session.getChoiceUri(), args, ACTION_TIMEOUT))
+                .thenAccept(response -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        showError(response.getItem());
+                        return;
+                    }
+                    client.pollNow();
+                })
+                .exceptionally(this::logFailure);
     }
 
     public void buyUpgrade(int shopIndex) {
         JsonObject info = new JsonObject();
         info.addProperty("shopIndex", shopIndex);
 
-        String lobbyId = getClient().getLobbyId();
-        int playerId = -1;
-        for (PlayerTemplate player : getClient().getGameState().players) {
-            if (player.name.equals(getClient().getPlayerName())) {
-                playerId = player.id;
-                break;
-            }
-        }
-        try {
-            Response<JsonObject> response = RequestCenter.postRequestJson(ResourceLocation.makeUri(ResourceLocation.buyUpgradePath(lobbyId, playerId)), info);
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                System.out.println("Couldn't buy upgrade");
-                Alert responseAlert = new Alert(Alert.AlertType.ERROR);
-                responseAlert.setTitle("Error");
-                responseAlert.setHeaderText(response.getItem().get("info").getAsString());
-                responseAlert.showAndWait();
-                return;
-            }
-            System.out.println("Upgrade bought successfully");
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        actions.track("buyUpgrade", RequestCenter.postRequestJsonAsync(session.getBuyUpgradeUri(), info, ACTION_TIMEOUT))
+                .thenAccept(response -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        System.out.println("Couldn't buy upgrade");
+                        showError(response.getItem().get("info").getAsString());
+                        return;
+                    }
+                    System.out.println("Upgrade bought successfully");
+                })
+                .exceptionally(this::logFailure);
     }
 
     public void discardUpgrade(int index, UpgradeCardFieldView.Placement placement) {
-        String lobbyId = getClient().getLobbyId();
-        int playerId = -1;
-        for (PlayerTemplate player : getClient().getGameState().players) {
-            if (player.name.equals(getClient().getPlayerName())) {
-                playerId = player.id;
-                break;
-            }
-        }
-        try {
-            JsonObject info = new JsonObject();
-            info.addProperty("index", index);
-            info.addProperty("isPermanent", placement == UpgradeCardFieldView.Placement.PERMANENT);
-            Response<JsonObject> response = RequestCenter.postRequestJson(ResourceLocation.makeUri(ResourceLocation.discardUpgradePath(lobbyId, playerId)), info);
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                Alert responseAlert = new Alert(Alert.AlertType.ERROR);
-                responseAlert.setTitle("Error");
-                responseAlert.setHeaderText(response.getItem().get("info").getAsString());
-                responseAlert.showAndWait();
-            }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        JsonObject info = new JsonObject();
+        info.addProperty("index", index);
+        info.addProperty("isPermanent", placement == UpgradeCardFieldView.Placement.PERMANENT);
+        actions.track("discardUpgrade", RequestCenter.postRequestJsonAsync(session.getDiscardUpgradeUri(), info, ACTION_TIMEOUT))
+                .thenAccept(response -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        showError(response.getItem().get("info").getAsString());
+                    }
+                })
+                .exceptionally(this::logFailure);
     }
 
     public void toggleUpgrade(int index, UpgradeCardFieldView.Placement placement) {
-        String lobbyId = getClient().getLobbyId();
-        int playerId = -1;
-        for (PlayerTemplate player : getClient().getGameState().players) {
-            if (player.name.equals(getClient().getPlayerName())) {
-                playerId = player.id;
-                break;
-            }
-        }
-        try {
-            JsonObject info = new JsonObject();
-            info.addProperty("index", index);
-            info.addProperty("isPermanent", placement == UpgradeCardFieldView.Placement.PERMANENT);
-            Response<JsonObject> response = RequestCenter.postRequestJson(ResourceLocation.makeUri(ResourceLocation.activateUpgradePath(lobbyId, playerId)), info);
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                Alert responseAlert = new Alert(Alert.AlertType.ERROR);
-                responseAlert.setTitle("Error");
-                responseAlert.setHeaderText(response.getItem().get("info").getAsString());
-                responseAlert.showAndWait();
-            }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        JsonObject info = new JsonObject();
+        info.addProperty("index", index);
+        info.addProperty("isPermanent", placement == UpgradeCardFieldView.Placement.PERMANENT);
+        actions.track("toggleUpgrade", RequestCenter.postRequestJsonAsync(session.getActivateUpgradeUri(), info, ACTION_TIMEOUT))
+                .thenAccept(response -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        showError(response.getItem().get("info").getAsString());
+                    }
+                })
+                .exceptionally(this::logFailure);
     }
 
     public void saveGame() {
         String fileName = inputBox(true);
         if (fileName == null) return;
-        try {
-            Response<JsonObject> response = RequestCenter.getRequestJson(ResourceLocation.makeUri(ResourceLocation.gameSavePath(client.getLobbyId())));
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText(response.getItem().get("info").getAsString());
-                alert.showAndWait();
-            }
-            String finalName = LoadSave.getFilePath(fileName, LoadSave.GAMESFOLDER);
-
-            GameTemplate gameState = gson.fromJson(response.getItem().getAsJsonObject().get("gameState").getAsString(), GameTemplate.class);
-            LoadSave.writeToFile(gameState, finalName);
-            //exit(); To exit or not to exit, that is the question
-
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        actions.submit("saveGame", () -> {
+                    Response<GameStateUpdate> response = RequestCenter.getGameStateAsync(session.getGameSaveUri(), null, ACTION_TIMEOUT, gson).get();
+                    if (response.getStatusCode().is2xxSuccessful()) {
+                        String finalName = LoadSave.getFilePath(fileName, LoadSave.GAMESFOLDER);
+
+                        GameTemplate gameState = response.getItem().gameState;
+                        LoadSave.writeToFile(gameState, finalName);
+                        //exit(); To exit or not to exit, that is the question
+                    }
+                    return response;
+                })
+                .thenAccept(response -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        showError(response.getItem() != null ? response.getItem().info : null);
+                    }
+                })
+                .exceptionally(this::logFailure);
     }
 
     public void loadGame() {
         String fileName = inputBox(false);
         if (fileName == null) return;
-        GameTemplate gameState = LoadSave.readGameStateFromFile(fileName);
-        if (gameState == null) {
-            Alert alert = new Alert(AlertType.ERROR);
-            alert.setTitle("Error");
-            alert.setHeaderText("No game found with that name");
-            alert.showAndWait();
-            return;
-        }
-        try {
-            JsonObject info = new JsonObject();
-            info.addProperty("gameState", gson.toJson(gameState));
-            info.addProperty("playerName", client.getPlayerName());
-            Response<JsonObject> response = RequestCenter.postRequestJson(ResourceLocation.makeUri(ResourceLocation.gameLoadPath(client.getLobbyId())), info);
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                Alert alert = new Alert(AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText(response.getItem().get("info").getAsString());
-                alert.showAndWait();
-            }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        actions.submit("loadGame", () -> {
+                    GameTemplate gameState = LoadSave.readGameStateFromFile(fileName);
+                    if (gameState == null) {
+                        return null;
+                    }
+                    JsonObject info = new JsonObject();
+                    info.addProperty("gameState", gson.toJson(gameState));
+                    info.addProperty("playerName", client.getPlayerName());
+                    return RequestCenter.postRequestJson(session.getGameLoadUri(), info);
+                })
+                .thenAccept(response -> {
+                    if (response == null) {
+                        showError("No game found with that name");
+                    } else if (!response.getStatusCode().is2xxSuccessful()) {
+                        showError(response.getItem().get("info").getAsString());
+                    }
+                })
+                .exceptionally(this::logFailure);
 
         /*if (gameController == null) {
             String fileName = inputBox(false);
@@ -0,0 +1,285 @@
+package dtu.compute.RoborallyClient.controller;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import dtu.compute.RoborallyClient.model.LobbyEntry;
+import dtu.compute.RoborallyClient.online.RequestCenter;
+import dtu.compute.RoborallyClient.online.ResourceLocation;
+import dtu.compute.RoborallyClient.online.ServerPool;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The lobbies of the lobby browser, fetched from the server a page at a time. The browser asks
+ * for the next page when it is scrolled near the end of the lobbies fetched so far; the players
+ * of the lobbies of each page are then loaded by a {@link LobbyLoader}, and every lobby is
+ * replaced in the list once its players are known.
+ * A server which ignores the offset and limit and answers with all lobbies at once is fine too:
+ * lobbies already listed are skipped, and a page without new lobbies ends the list.
+ * <p>
+ * The directory is kept while the client runs and works as a cache, so opening the browser again
+ * shows the lobbies of the last visit right away. Every lobby expires {@link #TTL} after it was
+ * loaded; an expired lobby is still shown, and loaded again once it is on screen (stale while
+ * revalidate). While the browser is open a background scheduler looks for expired lobbies on
+ * screen every {@link #TTL}, so a player watching the browser without scrolling costs at most
+ * one request per row on screen per TTL. The list itself is fetched again when the browser is
+ * opened after it has expired. Joining, leaving or creating a lobby expires what it changes.
+ * All methods must be called on the JavaFX Application Thread.
+ */
+public class LobbyDirectory {
+
+    private static final int PAGE_SIZE = Integer.getInteger("roborally.lobbyPageSize", 50);
+    private static final long TTL = Long.getLong("roborally.lobbyTtlMillis", 15000);
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lobby-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ActionExecutor actions;
+    private final Gson gson;
+    private final ObservableList<LobbyEntry> lobbies = FXCollections.observableArrayList();
+    /** Every lobby loaded, by id, also the ones not listed anymore since the list was fetched again. */
+    private final Map<String, LobbyEntry> cache = new HashMap<>();
+    private final Map<String, Integer> indices = new HashMap<>();
+    /** The number of cells showing each lobby. */
+    private final Map<String, Integer> onScreen = new HashMap<>();
+    /** The lobbies queued or being loaded, so they are not asked for twice. */
+    private final Set<String> refreshing = new HashSet<>();
+    private final List<String> toRefresh = new ArrayList<>();
+    private final List<LobbyLoader> loaders = new ArrayList<>();
+    private ScheduledFuture<?> tick;
+    private long start;
+    private long listExpiresAt;
+    private boolean listExpired = true;
+    /** Incremented when the list is fetched again, so pages of the list before are ignored. */
+    private int generation;
+    private boolean loading;
+    private boolean complete;
+    private boolean open;
+
+    public LobbyDirectory(ActionExecutor actions, Gson gson) {
+        this.actions = actions;
+        this.gson = gson;
+    }
+
+    /**
+     * @return the lobbies fetched so far, in the order of the server
+     */
+    public ObservableList<LobbyEntry> getLobbies() {
+        return lobbies;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Called when the lobby browser is shown. Shows the lobbies of the last visit, and fetches
+     * the list again if it has expired.
+     * @param start the {@link System#nanoTime()} the player asked for the lobbies
+     */
+    public void open(long start) {
+        if (open) return;
+        open = true;
+        this.start = start;
+        if (listExpired || System.nanoTime() - listExpiresAt >= 0) {
+            generation++;
+            loading = false;
+            complete = false;
+            fetchPage(0);
+        }
+        tick = scheduler.scheduleWithFixedDelay(() -> Platform.runLater(this::refreshOnScreen), TTL, TTL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called when the lobby browser is left. Stops loading lobbies, but keeps those loaded.
+     */
+    public void close() {
+        if (!open) return;
+        open = false;
+        if (tick != null) tick.cancel(false);
+        for (LobbyLoader loader : new ArrayList<>(loaders)) {
+            loader.cancel();
+        }
+        loaders.clear();
+        refreshing.clear();
+        toRefresh.clear();
+        onScreen.clear();
+    }
+
+    /**
+     * Expires a lobby, e.g. after joining or leaving it, so its players are loaded again.
+     */
+    public void invalidate(String lobbyId) {
+        LobbyEntry entry = cache.get(lobbyId);
+        if (entry == null) return;
+        replace(entry.expired());
+    }
+
+    /**
+     * Expires the list, e.g. after creating a lobby, so it is fetched again the next time the browser is opened.
+     */
+    public void invalidateList() {
+        listExpired = true;
+    }
+
+    /**
+     * Fetches the next page of lobbies, unless a page is being fetched already or all lobbies are.
+     */
+    public void loadMore() {
+        if (loading || complete || !open) {
+            return;
+        }
+        fetchPage(lobbies.size());
+    }
+
+    /**
+     * Called when a cell of the browser starts showing a lobby. Loads the lobby again if it has expired.
+     */
+    public void shown(LobbyEntry entry) {
+        if (!open) return;
+        onScreen.merge(entry.getLobbyId(), 1, Integer::sum);
+        if (entry.isStale(System.nanoTime())) {
+            refresh(entry.getLobbyId());
+        }
+    }
+
+    /**
+     * Called when a cell of the browser stops showing a lobby.
+     */
+    public void hidden(LobbyEntry entry) {
+        onScreen.computeIfPresent(entry.getLobbyId(), (lobbyId, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void fetchPage(int offset) {
+        loading = true;
+        int pageGeneration = generation;
+        // the first page is timed from when the player asked for the lobbies, later ones from when they are asked for
+        long pageStart = offset == 0 ? start : System.nanoTime();
+        ServerPool.Node server = ServerPool.preferred();
+        actions.track("lobbies " + offset, RequestCenter.getRequestAsync(ResourceLocation.makeUri(server, ResourceLocation.lobbiesPagePath(offset, PAGE_SIZE))))
+                .thenAccept(response -> {
+                    if (pageGeneration != generation) return;
+                    loading = false;
+                    if (!open) return;
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        System.out.println("Lobbies could not be listed: " + response.getStatusCode());
+                        return;
+                    }
+                    JsonArray page = gson.fromJson(response.getItem(), JsonObject.class).getAsJsonArray("lobbies");
+                    // the lobbies live on the server which listed them
+                    ServerPool.Node home = ServerPool.servedBy(response, server);
+                    for (JsonElement lobby : page) {
+                        ServerPool.setHome(lobby.getAsString(), home);
+                    }
+                    addPage(page, offset == 0, pageStart);
+                })
+                .exceptionally(e -> {
+                    if (pageGeneration == generation) loading = false;
+                    System.out.println("Lobbies could not be listed: " + e.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * @param first true for the first page, which replaces the lobbies listed before
+     */
+    private void addPage(JsonArray page, boolean first, long pageStart) {
+        if (first) {
+            indices.clear();
+            listExpired = false;
+            listExpiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TTL);
+        }
+        int offset = first ? 0 : lobbies.size();
+        long now = System.nanoTime();
+        List<String> lobbyIds = new ArrayList<>(page.size());
+        List<LobbyEntry> entries = new ArrayList<>(page.size());
+        for (JsonElement lobby : page) {
+            String lobbyId = lobby.getAsString();
+            if (indices.putIfAbsent(lobbyId, offset + entries.size()) == null) {
+                // lobbies loaded before are shown as they were until they are loaded again
+                LobbyEntry entry = cache.computeIfAbsent(lobbyId, LobbyEntry::new);
+                entries.add(entry);
+                if (entry.isStale(now) && refreshing.add(lobbyId)) {
+                    lobbyIds.add(lobbyId);
+                }
+            }
+        }
+        if (page.size() < PAGE_SIZE || entries.isEmpty()) {
+            complete = true;
+        }
+        if (first) {
+            lobbies.setAll(entries);
+        } else {
+            lobbies.addAll(entries);
+        }
+        load(lobbyIds, pageStart);
+    }
+
+    private void refresh(String lobbyId) {
+        if (!refreshing.add(lobbyId)) return;
+        toRefresh.add(lobbyId);
+        if (toRefresh.size() == 1) {
+            // the lobbies shown in the same pulse are loaded together
+            Platform.runLater(() -> {
+                if (!open) return;
+                List<String> lobbyIds = new ArrayList<>(toRefresh);
+                toRefresh.clear();
+                load(lobbyIds, System.nanoTime());
+            });
+        }
+    }
+
+    private void refreshOnScreen() {
+        if (!open) return;
+        long now = System.nanoTime();
+        for (String lobbyId : new ArrayList<>(onScreen.keySet())) {
+            LobbyEntry entry = cache.get(lobbyId);
+            if (entry != null && entry.isStale(now)) {
+                refresh(lobbyId);
+            }
+        }
+    }
+
+    private void load(List<String> lobbyIds, long loadStart) {
+        if (lobbyIds.isEmpty()) return;
+        LobbyLoader loader = new LobbyLoader(lobbyIds, this::lobbyLoaded, loadStart);
+        loaders.add(loader);
+        loader.start().whenComplete((result, e) -> {
+            loaders.remove(loader);
+            lobbyIds.forEach(refreshing::remove);
+        });
+    }
+
+    private void lobbyLoaded(int index, String lobbyId, JsonArray players) {
+        List<String> names = new ArrayList<>(players.size());
+        for (JsonElement player : players) {
+            names.add(player.getAsString());
+        }
+        refreshing.remove(lobbyId);
+        replace(new LobbyEntry(lobbyId, names, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TTL)));
+    }
+
+    private void replace(LobbyEntry entry) {
+        cache.put(entry.getLobbyId(), entry);
+        Integer position = indices.get(entry.getLobbyId());
+        if (position != null && position < lobbies.size()) {
+            lobbies.set(position, entry);
+        }
+    }
+}
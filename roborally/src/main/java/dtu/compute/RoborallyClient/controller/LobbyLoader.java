@@ -0,0 +1,167 @@
+package dtu.compute.RoborallyClient.controller;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import dtu.compute.RoborallyClient.online.RequestCenter;
+import dtu.compute.RoborallyClient.online.ResourceLocation;
+import dtu.compute.RoborallyClient.online.Response;
+import dtu.compute.RoborallyClient.online.ServerPool;
+import javafx.application.Platform;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the players of a list of lobbies for the lobby browser. At most {@link #MAX_IN_FLIGHT}
+ * requests are sent at once, each with its own timeout, so one slow lobby only delays its own
+ * row. Every lobby is handed to the listener on the JavaFX Application Thread as soon as it
+ * arrives; lobbies which fail or time out are left out.
+ * It logs the time to the first row and to the full list, counted from the time given as start.
+ */
+public class LobbyLoader {
+
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("roborally.lobbyFetchConcurrency", 8);
+    private static final Duration TIMEOUT = Duration.ofMillis(Long.getLong("roborally.lobbyFetchTimeoutMillis", 2000));
+
+    /**
+     * Called on the JavaFX Application Thread for every lobby loaded.
+     */
+    public interface Listener {
+        /**
+         * @param index the position of the lobby in the list
+         */
+        void lobbyLoaded(int index, String lobbyId, JsonArray players);
+    }
+
+    private final List<String> lobbyIds;
+    private final Listener listener;
+    private final long start;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger finished = new AtomicInteger();
+    private final AtomicInteger failureCount = new AtomicInteger();
+    private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private volatile boolean cancelled;
+    private long firstRowNanos = -1;
+    private long allRowsNanos = -1;
+
+    /**
+     * @param start the {@link System#nanoTime()} the player asked for the lobbies
+     */
+    public LobbyLoader(List<String> lobbyIds, Listener listener, long start) {
+        this.lobbyIds = List.copyOf(lobbyIds);
+        this.listener = listener;
+        this.start = start;
+    }
+
+    /**
+     * Starts loading the lobbies.
+     * @return completes once every lobby has been loaded, has failed or has timed out
+     */
+    public CompletableFuture<Void> start() {
+        if (lobbyIds.isEmpty()) {
+            Platform.runLater(this::allLoaded);
+        }
+        for (int i = 0; i < Math.min(MAX_IN_FLIGHT, lobbyIds.size()); i++) {
+            loadNext();
+        }
+        return done;
+    }
+
+    /**
+     * Stops loading, e.g. when the lobby browser is closed or opened again. Requests in flight
+     * are cancelled and the listener is not called anymore.
+     */
+    public void cancel() {
+        cancelled = true;
+        inFlight.forEach(request -> request.cancel(true));
+        done.cancel(false);
+    }
+
+    private void loadNext() {
+        int index = next.getAndIncrement();
+        if (cancelled || index >= lobbyIds.size()) {
+            return;
+        }
+        String lobbyId = lobbyIds.get(index);
+        CompletableFuture<Response<JsonObject>> request = RequestCenter.getRequestJsonAsync(
+                ResourceLocation.makeUri(ServerPool.homeOf(lobbyId), ResourceLocation.lobbyStatePath(lobbyId)), TIMEOUT);
+        inFlight.add(request);
+        request.whenComplete((response, e) -> {
+            inFlight.remove(request);
+            JsonArray players = null;
+            try {
+                if (e != null || !response.getStatusCode().is2xxSuccessful() || response.getItem() == null) {
+                    failed(lobbyId, e != null ? e : response.getStatusCode());
+                } else {
+                    JsonElement item = response.getItem().get("players");
+                    if (item != null && item.isJsonArray()) {
+                        players = item.getAsJsonArray();
+                    } else {
+                        failed(lobbyId, "no list of players");
+                    }
+                }
+            } catch (RuntimeException malformed) {
+                players = null;
+                failed(lobbyId, malformed);
+            } finally {
+                // the lobby counts as finished and frees its slot whatever happened to it
+                JsonArray loaded = players;
+                Platform.runLater(() -> {
+                    if (cancelled) return;
+                    try {
+                        if (loaded != null) {
+                            listener.lobbyLoaded(index, lobbyId, loaded);
+                            if (firstRowNanos < 0) {
+                                firstRowNanos = System.nanoTime() - start;
+                            }
+                        }
+                    } finally {
+                        if (finished.incrementAndGet() == lobbyIds.size()) {
+                            allLoaded();
+                        }
+                    }
+                });
+                loadNext();
+            }
+        });
+    }
+
+    private void failed(String lobbyId, Object reason) {
+        failureCount.incrementAndGet();
+        if (!cancelled) {
+            System.out.println("Lobby " + lobbyId + " could not be loaded: " + reason);
+        }
+    }
+
+    private void allLoaded() {
+        allRowsNanos = System.nanoTime() - start;
+        System.out.println("Lobbies: " + lobbyIds.size() + " in " + allRowsNanos / 1_000_000 + " ms, first row after "
+                + (firstRowNanos < 0 ? "-" : firstRowNanos / 1_000_000) + " ms, " + failureCount.get() + " failed");
+        done.complete(null);
+    }
+
+    public int getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * @return the time from the start to the first lobby shown in milliseconds, or -1 if none was shown yet
+     */
+    public long getTimeToFirstRowMillis() {
+        return firstRowNanos < 0 ? -1 : firstRowNanos / 1_000_000;
+    }
+
+    /**
+     * @return the time from the start to the whole list loaded in milliseconds, or -1 if it is still loading
+     */
+    public long getTimeToFullListMillis() {
+        return allRowsNanos < 0 ? -1 : allRowsNanos / 1_000_000;
+    }
+}
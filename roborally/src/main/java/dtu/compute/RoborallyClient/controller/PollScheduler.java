@@ -0,0 +1,184 @@
+package dtu.compute.RoborallyClient.controller;
+
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.PlayerTemplate;
+import dtu.compute.RoborallyClient.model.Phase;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Schedules the game state polls with an interval that adapts to the game. Every phase has
+ * a range of intervals: short while robots are moving, long while players are programming.
+ * While nothing changes the interval doubles up to the end of the range; as soon as a change
+ * is observed it drops back to the start. The next poll is only scheduled once the previous
+ * one has completed, so slow responses never overlap; a poll asked for while one is in flight
+ * is sent right after it.
+ */
+public class PollScheduler {
+
+    /** Weight of the newest poll in the moving average of changes per poll. */
+    private static final double CHANGE_RATE_WEIGHT = 0.2;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "poll-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Supplier<CompletableFuture<Boolean>> poll;
+    private final Supplier<GameTemplate> gameState;
+    private final Supplier<String> playerName;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong changeCount = new AtomicLong();
+    private volatile long currentInterval;
+    private double changeRate;
+    private ScheduledFuture<?> next;
+    private boolean started;
+    private boolean inFlight;
+    /** Set when {@link #pollNow()} is called while a poll is in flight. */
+    private boolean pollAgain;
+    private boolean stopped;
+
+    /**
+     * @param poll performs one poll and completes with true if the game state changed
+     * @param gameState the game state currently shown
+     * @param playerName the name of the player of this client
+     */
+    public PollScheduler(Supplier<CompletableFuture<Boolean>> poll, Supplier<GameTemplate> gameState, Supplier<String> playerName) {
+        this.poll = poll;
+        this.gameState = gameState;
+        this.playerName = playerName;
+    }
+
+    public synchronized void start() {
+        if (stopped || started) return;
+        started = true;
+        currentInterval = minInterval();
+        next = executor.schedule(this::tick, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        stopped = true;
+        if (next != null) next.cancel(false);
+        executor.shutdown();
+    }
+
+    /**
+     * Polls right away instead of waiting for the current interval, e.g. after the player
+     * has done something that is expected to change the game state. If a poll is in flight,
+     * the next one is sent as soon as it has completed, since it may have been answered before the change.
+     */
+    public synchronized void pollNow() {
+        if (stopped || !started) return;
+        if (inFlight) {
+            pollAgain = true;
+            return;
+        }
+        if (next != null) next.cancel(false);
+        currentInterval = minInterval();
+        next = executor.schedule(this::tick, 0, TimeUnit.MILLISECONDS);
+    }
+
+    private void tick() {
+        synchronized (this) {
+            if (stopped || inFlight) return;
+            inFlight = true;
+        }
+        requestCount.incrementAndGet();
+        CompletableFuture<Boolean> result;
+        try {
+            result = poll.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((changed, e) -> completed(e == null && Boolean.TRUE.equals(changed)));
+    }
+
+    private synchronized void completed(boolean changed) {
+        inFlight = false;
+        if (stopped) return;
+        changeRate = CHANGE_RATE_WEIGHT * (changed ? 1 : 0) + (1 - CHANGE_RATE_WEIGHT) * changeRate;
+        if (changed) {
+            changeCount.incrementAndGet();
+            currentInterval = minInterval();
+        } else {
+            // frequent recent changes keep the interval from growing all the way to the maximum
+            long min = minInterval();
+            long ceiling = min + Math.round((maxInterval() - min) * (1 - changeRate));
+            currentInterval = Math.max(min, Math.min(ceiling, currentInterval * 2));
+        }
+        if (pollAgain) {
+            pollAgain = false;
+            currentInterval = minInterval();
+            next = executor.schedule(this::tick, 0, TimeUnit.MILLISECONDS);
+            return;
+        }
+        next = executor.schedule(this::tick, currentInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private long minInterval() {
+        return switch (phase()) {
+            case ACTIVATION -> 150;
+            case PLAYER_INTERACTION, UPGRADE -> ownTurn() ? 1000 : 200;
+            case PROGRAMMING -> 1000;
+            case INITIALISATION -> 500;
+        };
+    }
+
+    private long maxInterval() {
+        return switch (phase()) {
+            case ACTIVATION -> 1000;
+            case PLAYER_INTERACTION, UPGRADE -> ownTurn() ? 4000 : 1500;
+            case PROGRAMMING -> 4000;
+            case INITIALISATION -> 2000;
+        };
+    }
+
+    private Phase phase() {
+        GameTemplate gameState = this.gameState.get();
+        if (gameState == null) return Phase.INITIALISATION;
+        return Phase.values()[gameState.playPhase];
+    }
+
+    /**
+     * @return true if the game waits for this client's player, in which case nothing
+     * changes before the player acts and polling can be slow
+     */
+    private boolean ownTurn() {
+        GameTemplate gameState = this.gameState.get();
+        if (gameState == null) return false;
+        for (PlayerTemplate player : gameState.players) {
+            if (player.id == gameState.currentPlayer) {
+                return player.name.equals(playerName.get());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the delay in milliseconds before the next poll
+     */
+    public long getCurrentInterval() {
+        return currentInterval;
+    }
+
+    /**
+     * @return the number of polls sent since the scheduler was created
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of polls that returned a changed game state
+     */
+    public long getChangeCount() {
+        return changeCount.get();
+    }
+}
@@ -0,0 +1,113 @@
+package dtu.compute.RoborallyClient.controller;
+
+import javafx.application.Platform;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands updates from the polling threads to the JavaFX Application Thread. There is at most one
+ * pending update per {@link Slot}: posting to a slot that already has an update replaces it, so
+ * if the JavaFX thread falls behind only the latest board is shown instead of every stale one in
+ * turn. All pending updates run together in a single {@link Platform#runLater(Runnable)}, in the
+ * order of the slots, so a board and its lasers are shown in the same pulse.
+ */
+public class UiDispatcher {
+
+    /**
+     * The kinds of updates, in the order they are run in
+     */
+    public enum Slot {
+        BOARD,
+        LASERS,
+        WINNER,
+        LOBBY
+    }
+
+    private final Map<Slot, Runnable> pending = new EnumMap<>(Slot.class);
+    private final Executor fxThread;
+    private boolean scheduled;
+
+    private final AtomicLong postedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    public UiDispatcher() {
+        this(Platform::runLater);
+    }
+
+    /**
+     * @param fxThread runs the batches of updates; {@link Platform#runLater(Runnable)} except in tests
+     */
+    UiDispatcher(Executor fxThread) {
+        this.fxThread = fxThread;
+    }
+
+    /**
+     * Runs the update on the JavaFX Application Thread, unless another update is posted to the same slot first.
+     */
+    public void post(Slot slot, Runnable update) {
+        postedCount.incrementAndGet();
+        synchronized (this) {
+            if (pending.put(slot, update) != null) {
+                droppedCount.incrementAndGet();
+            }
+            if (scheduled) return;
+            scheduled = true;
+        }
+        fxThread.execute(this::runPending);
+    }
+
+    private void runPending() {
+        batchCount.incrementAndGet();
+        while (true) {
+            Map<Slot, Runnable> updates;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    scheduled = false;
+                    return;
+                }
+                updates = new EnumMap<>(pending);
+                pending.clear();
+            }
+            // updates posted by these updates, e.g. lasers waiting for the board, run in the same batch
+            for (Runnable update : updates.values()) {
+                try {
+                    update.run();
+                } catch (RuntimeException e) {
+                    System.out.println("UI update failed: " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of updates waiting for the JavaFX Application Thread
+     */
+    public synchronized int getQueueDepth() {
+        return pending.size();
+    }
+
+    /**
+     * @return the number of updates posted since the dispatcher was created
+     */
+    public long getPostedCount() {
+        return postedCount.get();
+    }
+
+    /**
+     * @return the number of updates replaced by a newer one before they were run
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return the number of times pending updates were run on the JavaFX Application Thread
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+}
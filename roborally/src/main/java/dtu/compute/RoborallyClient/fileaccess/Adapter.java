@@ -71,15 +71,10 @@ public class Adapter<E> implements JsonSerializer<E>, JsonDeserializer<E>{
         JsonPrimitive prim = (JsonPrimitive) jsonObject.get(CLASSNAME);
         String className = prim.getAsString();
 
-        Class<?> klass;
-        if (className.contains("RoborallyServer.controller")) {
-            className = className.replace("RoborallyServer.controller", "RoborallyClient.fields");
-        }
-        try {
-            klass = Class.forName(className);
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
-            throw new JsonParseException(e.getMessage());
+        // field actions, also those named with the server's package, are resolved by the registry only
+        Class<?> klass = FieldActionRegistry.classFor(className);
+        if (klass == null) {
+            throw new JsonParseException("Unknown field action: " + className);
         }
         return context.deserialize(jsonObject.get(INSTANCE), klass);
     }
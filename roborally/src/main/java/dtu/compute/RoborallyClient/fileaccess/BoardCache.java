@@ -0,0 +1,210 @@
+package dtu.compute.RoborallyClient.fileaccess;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import dtu.compute.RoborallyClient.fields.EnergyCubeField;
+import dtu.compute.RoborallyClient.fields.FieldAction;
+import dtu.compute.RoborallyClient.fileaccess.model.BoardTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.PlayerTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.SpaceTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the boards of the games played, in memory and on disk, by map name and the hash the
+ * server computed of the board. The layout of a board never changes during a game, so once the
+ * client holds a board it asks for the game state without it (see {@link #QUERY}), and the server
+ * then only sends the board hash and the energy cubes left on the board. The board of such a game
+ * state is bound to the cached board again with {@link #bind(GameTemplate)}.
+ * The cache directory is ~/.roborally/boards, or the directory given by -Droborally.boardCacheDir.
+ */
+public class BoardCache {
+
+    public static final String QUERY = "board";
+
+    private static final Path directory = Paths.get(System.getProperty("roborally.boardCacheDir",
+            Paths.get(System.getProperty("user.home"), ".roborally", "boards").toString()));
+
+    private static final Gson gson = new GsonBuilder().
+            registerTypeAdapterFactory(new TemplateAdapters()).
+            create();
+
+    private static final Map<String, CachedBoard> boards = new ConcurrentHashMap<>();
+
+    /**
+     * A board without players, together with the indices of its energy cube fields.
+     */
+    private static class CachedBoard {
+        final BoardTemplate board;
+        final int[] energyCubeSpaces;
+
+        CachedBoard(BoardTemplate board) {
+            this.board = board;
+            int count = 0;
+            int[] indices = new int[board.spaces.size()];
+            for (int i = 0; i < board.spaces.size(); i++) {
+                if (energyCubeField(board.spaces.get(i)) != null) indices[count++] = i;
+            }
+            this.energyCubeSpaces = Arrays.copyOf(indices, count);
+        }
+    }
+
+    /**
+     * @return true if the board with the given hash is in memory, so a game state may be requested without it
+     */
+    public static boolean contains(String mapName, String boardHash) {
+        return boardHash != null && boards.containsKey(key(mapName, boardHash));
+    }
+
+    /**
+     * Completes the board of the game state. A game state with a board and a board hash
+     * adds the board to the cache; a game state with only the hash gets the cached board,
+     * with the players and energy cubes of the game state put on it.
+     * @return false if the game state has no board and the board is not cached, so the full game state is needed
+     */
+    public static boolean bind(GameTemplate gameState) {
+        if (gameState == null || gameState.boardHash == null) {
+            return true;
+        }
+        if (gameState.board != null) {
+            if (!contains(gameState.mapName, gameState.boardHash)) put(gameState.mapName, gameState.boardHash, gameState.board);
+            return true;
+        }
+        CachedBoard cached = get(gameState.mapName, gameState.boardHash);
+        if (cached == null) {
+            return false;
+        }
+        gameState.board = bound(cached, gameState);
+        return true;
+    }
+
+    private static CachedBoard get(String mapName, String boardHash) {
+        String key = key(mapName, boardHash);
+        CachedBoard cached = boards.get(key);
+        if (cached == null) {
+            cached = read(fileOf(key));
+            if (cached != null) boards.put(key, cached);
+        }
+        return cached;
+    }
+
+    private static void put(String mapName, String boardHash, BoardTemplate board) {
+        String key = key(mapName, boardHash);
+        // the spaces holding a player are copied, so the cached board stays empty without touching the given one
+        BoardTemplate empty = board.clone();
+        for (int i = 0; i < empty.spaces.size(); i++) {
+            SpaceTemplate space = empty.spaces.get(i);
+            if (space.player != -1) {
+                space = copyOf(space);
+                space.player = -1;
+                empty.spaces.set(i, space);
+            }
+        }
+        boards.put(key, new CachedBoard(empty));
+        write(fileOf(key), empty);
+    }
+
+    /**
+     * A board sharing the spaces of the cached board, except for those which differ in this game state.
+     */
+    private static BoardTemplate bound(CachedBoard cached, GameTemplate gameState) {
+        BoardTemplate board = cached.board.clone();
+        if (gameState.energyCubes != null) {
+            for (int i = 0; i < cached.energyCubeSpaces.length && i < gameState.energyCubes.length; i++) {
+                int index = cached.energyCubeSpaces[i];
+                if (energyCubeField(board.spaces.get(index)).getEnergyCubes() != gameState.energyCubes[i]) {
+                    SpaceTemplate space = copyOf(board.spaces.get(index));
+                    energyCubeField(space).setEnergyCubes(gameState.energyCubes[i]);
+                    board.spaces.set(index, space);
+                }
+            }
+        }
+        for (int i = 0; i < gameState.players.size(); i++) {
+            PlayerTemplate player = gameState.players.get(i);
+            if (player.xPosition < 0 || player.xPosition >= board.width || player.yPosition < 0 || player.yPosition >= board.height) continue;
+            int index = player.xPosition * board.height + player.yPosition;
+            SpaceTemplate space = board.spaces.get(index);
+            if (space == cached.board.spaces.get(index)) space = copyOf(space);
+            space.player = i;
+            board.spaces.set(index, space);
+        }
+        return board;
+    }
+
+    private static EnergyCubeField energyCubeField(SpaceTemplate space) {
+        for (FieldAction action : space.actions) {
+            if (action instanceof EnergyCubeField) return (EnergyCubeField) action;
+        }
+        return null;
+    }
+
+    /**
+     * A copy of the space with its own energy cube field, which is the only field action that changes.
+     */
+    private static SpaceTemplate copyOf(SpaceTemplate space) {
+        SpaceTemplate copy = new SpaceTemplate();
+        copy.walls = space.walls;
+        copy.actions = new ArrayList<>(space.actions);
+        for (int i = 0; i < copy.actions.size(); i++) {
+            if (copy.actions.get(i) instanceof EnergyCubeField field) {
+                EnergyCubeField fieldCopy = new EnergyCubeField();
+                fieldCopy.setEnergyCubes(field.getEnergyCubes());
+                copy.actions.set(i, fieldCopy);
+            }
+        }
+        copy.x = space.x;
+        copy.y = space.y;
+        copy.isPit = space.isPit;
+        copy.startField = space.startField;
+        copy.player = space.player;
+        return copy;
+    }
+
+    private static String key(String mapName, String boardHash) {
+        return (mapName == null ? "" : mapName) + "-" + boardHash;
+    }
+
+    private static Path fileOf(String key) {
+        return directory.resolve(key.replaceAll("[^A-Za-z0-9_.-]", "_") + ".json");
+    }
+
+    private static CachedBoard read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            BoardTemplate board = gson.fromJson(reader, BoardTemplate.class);
+            return board != null && board.spaces.size() == board.width * board.height ? new CachedBoard(board) : null;
+        } catch (IOException | JsonParseException e) {
+            System.out.println("Could not read cached board " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void write(Path file, BoardTemplate board) {
+        try {
+            Files.createDirectories(directory);
+            // written next to the file and moved, so a board is never read half written
+            Path temporary = Files.createTempFile(directory, "board", ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                gson.toJson(board, BoardTemplate.class, writer);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Could not cache board " + file + ": " + e.getMessage());
+        }
+    }
+}
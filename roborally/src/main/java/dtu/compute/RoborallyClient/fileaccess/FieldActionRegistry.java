@@ -0,0 +1,255 @@
+package dtu.compute.RoborallyClient.fileaccess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import dtu.compute.RoborallyClient.fields.*;
+import dtu.compute.RoborallyClient.model.Heading;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The known sub-types of {@link FieldAction}, each with a hand-written type adapter for its
+ * content. A field action is tagged with the name of its class; the server uses its own
+ * package (dtu.compute.RoborallyServer.controller) for the same classes, so the registry
+ * accepts the tags of both client and server. The table is built once, so decoding an
+ * action is a single map lookup instead of a Class.forName and reflective decoding.
+ * <p>
+ * The registry is the only place tags are resolved: a tag it does not know is not looked up
+ * with Class.forName, and both the {@link TemplateAdapters} and the legacy {@link Adapter}
+ * reject it with a JsonParseException.
+ */
+public class FieldActionRegistry {
+
+    private static final String CLIENT_PACKAGE = "dtu.compute.RoborallyClient.fields.";
+    private static final String SERVER_PACKAGE = "dtu.compute.RoborallyServer.controller.";
+
+    private static final Map<String, TypeAdapter<? extends FieldAction>> adapters = new HashMap<>();
+    private static final Map<String, Class<? extends FieldAction>> classes = new HashMap<>();
+    private static final Map<Class<? extends FieldAction>, TypeAdapter<? extends FieldAction>> adaptersByClass = new HashMap<>();
+
+    static {
+        register(ConveyorBelt.class, new ConveyorBeltAdapter());
+        register(Laser.class, new LaserAdapter());
+        register(Gear.class, new GearAdapter());
+        register(PushPanel.class, new PushPanelAdapter());
+        register(Checkpoint.class, new CheckpointAdapter());
+        register(EnergyCubeField.class, new EnergyCubeFieldAdapter());
+    }
+
+    private static <T extends FieldAction> void register(Class<T> type, TypeAdapter<T> adapter) {
+        adapters.put(CLIENT_PACKAGE + type.getSimpleName(), adapter);
+        adapters.put(SERVER_PACKAGE + type.getSimpleName(), adapter);
+        classes.put(CLIENT_PACKAGE + type.getSimpleName(), type);
+        classes.put(SERVER_PACKAGE + type.getSimpleName(), type);
+        adaptersByClass.put(type, adapter);
+    }
+
+    /**
+     * @param tag the class name a field action was tagged with, from the client or the server
+     * @return the adapter for the content of the action, or null if the tag is unknown
+     */
+    public static TypeAdapter<? extends FieldAction> adapterFor(String tag) {
+        return adapters.get(tag);
+    }
+
+    /**
+     * @param tag the class name a field action was tagged with, from the client or the server
+     * @return the client class of the action, or null if the tag is unknown
+     */
+    public static Class<? extends FieldAction> classFor(String tag) {
+        return classes.get(tag);
+    }
+
+    /**
+     * @return the tag to write for the given action
+     */
+    public static String tagOf(FieldAction action) {
+        return action.getClass().getName();
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T extends FieldAction> TypeAdapter<T> adapterFor(Class<T> type) {
+        return (TypeAdapter<T>) adaptersByClass.get(type);
+    }
+
+    static Heading readHeading(JsonReader in) throws IOException {
+        return readEnum(in, Heading.class);
+    }
+
+    /**
+     * @return the constant named by the next value, or null if the value is null or names no constant
+     */
+    static <E extends Enum<E>> E readEnum(JsonReader in, Class<E> type) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String name = in.nextString();
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return null; // like Gson's own enum adapter
+        }
+    }
+
+    static void writeHeading(JsonWriter out, String name, Heading heading) throws IOException {
+        if (heading != null) out.name(name).value(heading.name());
+    }
+
+    private static class ConveyorBeltAdapter extends TypeAdapter<ConveyorBelt> {
+        @Override
+        public void write(JsonWriter out, ConveyorBelt belt) throws IOException {
+            out.beginObject();
+            writeHeading(out, "heading", belt.getHeading());
+            writeHeading(out, "turn", belt.getTurn());
+            writeHeading(out, "cross", belt.getCross());
+            writeHeading(out, "tea", belt.getTea());
+            out.name("belt").value(belt.getBelt());
+            out.endObject();
+        }
+
+        @Override
+        public ConveyorBelt read(JsonReader in) throws IOException {
+            ConveyorBelt belt = new ConveyorBelt();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "heading" -> belt.setHeading(readHeading(in));
+                    case "turn" -> belt.setTurn(readHeading(in));
+                    case "cross" -> belt.setCross(readHeading(in));
+                    case "tea" -> belt.setTea(readHeading(in));
+                    case "belt" -> belt.setBelt(in.nextInt());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return belt;
+        }
+    }
+
+    private static class LaserAdapter extends TypeAdapter<Laser> {
+        @Override
+        public void write(JsonWriter out, Laser laser) throws IOException {
+            out.beginObject();
+            writeHeading(out, "heading", laser.getHeading());
+            out.name("lazer").value(laser.getLazer());
+            out.endObject();
+        }
+
+        @Override
+        public Laser read(JsonReader in) throws IOException {
+            Laser laser = new Laser();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "heading" -> laser.setHeading(readHeading(in));
+                    case "lazer" -> laser.setLazer(in.nextInt());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return laser;
+        }
+    }
+
+    private static class GearAdapter extends TypeAdapter<Gear> {
+        @Override
+        public void write(JsonWriter out, Gear gear) throws IOException {
+            out.beginObject();
+            writeHeading(out, "heading", gear.getHeading());
+            out.endObject();
+        }
+
+        @Override
+        public Gear read(JsonReader in) throws IOException {
+            Gear gear = new Gear();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("heading")) {
+                    gear.setHeading(readHeading(in));
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return gear;
+        }
+    }
+
+    private static class PushPanelAdapter extends TypeAdapter<PushPanel> {
+        @Override
+        public void write(JsonWriter out, PushPanel pushPanel) throws IOException {
+            out.beginObject();
+            writeHeading(out, "heading", pushPanel.getHeading());
+            if (pushPanel.getPushTime() != null) out.name("pushTime").value(pushPanel.getPushTime().name());
+            out.endObject();
+        }
+
+        @Override
+        public PushPanel read(JsonReader in) throws IOException {
+            PushPanel pushPanel = new PushPanel();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "heading" -> pushPanel.setHeading(readHeading(in));
+                    case "pushTime" -> pushPanel.setPushTime(readEnum(in, PushPanel.PushTime.class));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return pushPanel;
+        }
+    }
+
+    private static class CheckpointAdapter extends TypeAdapter<Checkpoint> {
+        @Override
+        public void write(JsonWriter out, Checkpoint checkpoint) throws IOException {
+            out.beginObject();
+            out.name("id").value(checkpoint.getId());
+            out.endObject();
+        }
+
+        @Override
+        public Checkpoint read(JsonReader in) throws IOException {
+            int id = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("id")) {
+                    id = in.nextInt();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new Checkpoint(id);
+        }
+    }
+
+    private static class EnergyCubeFieldAdapter extends TypeAdapter<EnergyCubeField> {
+        @Override
+        public void write(JsonWriter out, EnergyCubeField field) throws IOException {
+            out.beginObject();
+            out.name("energyCubes").value(field.getEnergyCubes());
+            out.endObject();
+        }
+
+        @Override
+        public EnergyCubeField read(JsonReader in) throws IOException {
+            EnergyCubeField field = new EnergyCubeField();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("energyCubes")) {
+                    field.setEnergyCubes(in.nextInt());
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return field;
+        }
+    }
+}
@@ -5,7 +5,6 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
-import dtu.compute.RoborallyClient.fields.FieldAction;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
@@ -50,7 +49,7 @@ public class LoadSave {
 
         // In simple cases, we can create a Gson object with new Gson():
         GsonBuilder simpleBuilder = new GsonBuilder().
-                registerTypeAdapter(FieldAction.class, new Adapter<FieldAction>());
+                registerTypeAdapterFactory(new TemplateAdapters());
         Gson gson = simpleBuilder.create();
 
         JsonReader reader = null;
@@ -78,7 +77,7 @@ public class LoadSave {
 
     public static void writeToFile(Object template, String filename) {
         GsonBuilder simpleBuilder = new GsonBuilder().
-                registerTypeAdapter(FieldAction.class, new Adapter<FieldAction>()).
+                registerTypeAdapterFactory(new TemplateAdapters()).
                 setPrettyPrinting();
         Gson gson = simpleBuilder.create();
 
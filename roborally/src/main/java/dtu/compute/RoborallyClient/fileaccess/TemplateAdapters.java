@@ -0,0 +1,477 @@
+package dtu.compute.RoborallyClient.fileaccess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import dtu.compute.RoborallyClient.fields.FieldAction;
+import dtu.compute.RoborallyClient.fileaccess.model.BoardTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.PlayerTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.SpaceTemplate;
+import dtu.compute.RoborallyClient.model.Heading;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static dtu.compute.RoborallyClient.view.PlayerView.*;
+
+/**
+ * Hand-written type adapters for the templates in {@link dtu.compute.RoborallyClient.fileaccess.model}
+ * and for {@link FieldAction}. They read and write the same JSON as Gson's reflective adapters
+ * together with {@link Adapter}, but without reflection, so that decoding the game state on every
+ * poll only allocates the templates themselves.
+ * Register them with {@link com.google.gson.GsonBuilder#registerTypeAdapterFactory}.
+ */
+public class TemplateAdapters implements TypeAdapterFactory {
+
+    private static final String CLASSNAME = "CLASSNAME";
+    private static final String INSTANCE  = "INSTANCE";
+
+    private final FieldActionAdapter fieldActionAdapter = new FieldActionAdapter();
+    private final SpaceTemplateAdapter spaceAdapter = new SpaceTemplateAdapter();
+    private final BoardTemplateAdapter boardAdapter = new BoardTemplateAdapter();
+    private final PlayerTemplateAdapter playerAdapter = new PlayerTemplateAdapter();
+    private final GameTemplateAdapter gameAdapter = new GameTemplateAdapter();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType == GameTemplate.class) return (TypeAdapter<T>) gameAdapter;
+        if (rawType == BoardTemplate.class) return (TypeAdapter<T>) boardAdapter;
+        if (rawType == SpaceTemplate.class) return (TypeAdapter<T>) spaceAdapter;
+        if (rawType == PlayerTemplate.class) return (TypeAdapter<T>) playerAdapter;
+        if (rawType == FieldAction.class) return (TypeAdapter<T>) fieldActionAdapter;
+        return null;
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static int[] readIntArray(JsonReader in, int expectedLength) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        int[] values = new int[Math.max(expectedLength, 1)];
+        int length = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (length == values.length) values = Arrays.copyOf(values, length * 2);
+            values[length++] = in.nextInt();
+        }
+        in.endArray();
+        return length == values.length ? values : Arrays.copyOf(values, length);
+    }
+
+    private static boolean[] readBooleanArray(JsonReader in, int expectedLength) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        boolean[] values = new boolean[Math.max(expectedLength, 1)];
+        int length = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (length == values.length) values = Arrays.copyOf(values, length * 2);
+            values[length++] = in.nextBoolean();
+        }
+        in.endArray();
+        return length == values.length ? values : Arrays.copyOf(values, length);
+    }
+
+    private static List<Integer> readIntList(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<Integer> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(in.nextInt());
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static void writeIntArray(JsonWriter out, String name, int[] values) throws IOException {
+        if (values == null) return;
+        out.name(name).beginArray();
+        for (int value : values) out.value(value);
+        out.endArray();
+    }
+
+    private static void writeBooleanArray(JsonWriter out, String name, boolean[] values) throws IOException {
+        if (values == null) return;
+        out.name(name).beginArray();
+        for (boolean value : values) out.value(value);
+        out.endArray();
+    }
+
+    private static void writeIntList(JsonWriter out, String name, List<Integer> values) throws IOException {
+        if (values == null) return;
+        out.name(name).beginArray();
+        for (Integer value : values) out.value(value);
+        out.endArray();
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) out.name(name).value(value);
+    }
+
+    /**
+     * Field actions are wrapped in an envelope naming their class, see {@link Adapter}. The class
+     * is resolved through the {@link FieldActionRegistry}.
+     */
+    private static class FieldActionAdapter extends TypeAdapter<FieldAction> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void write(JsonWriter out, FieldAction action) throws IOException {
+            if (action == null) {
+                out.nullValue();
+                return;
+            }
+            TypeAdapter<FieldAction> adapter = (TypeAdapter<FieldAction>) FieldActionRegistry.adapterFor(action.getClass());
+            if (adapter == null) {
+                throw new JsonParseException("No adapter registered for " + action.getClass().getName());
+            }
+            out.beginObject();
+            out.name(CLASSNAME).value(FieldActionRegistry.tagOf(action));
+            out.name(INSTANCE);
+            adapter.write(out, action);
+            out.endObject();
+        }
+
+        @Override
+        public FieldAction read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            TypeAdapter<? extends FieldAction> adapter = null;
+            JsonElement bufferedInstance = null;
+            FieldAction action = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case CLASSNAME -> {
+                        String tag = in.nextString();
+                        adapter = FieldActionRegistry.adapterFor(tag);
+                        if (adapter == null) {
+                            throw new JsonParseException("Unknown field action: " + tag);
+                        }
+                    }
+                    case INSTANCE -> {
+                        if (adapter != null) {
+                            action = adapter.read(in);
+                        } else {
+                            // the class name comes after the content, which is rare; keep the content until it is known
+                            bufferedInstance = new JsonParser().parse(in);
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (action == null && bufferedInstance != null && adapter != null) {
+                action = adapter.fromJsonTree(bufferedInstance);
+            }
+            return action;
+        }
+    }
+
+    private class SpaceTemplateAdapter extends TypeAdapter<SpaceTemplate> {
+        @Override
+        public void write(JsonWriter out, SpaceTemplate space) throws IOException {
+            if (space == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            if (space.walls != null) {
+                out.name("walls").beginArray();
+                for (Heading wall : space.walls) {
+                    if (wall == null) out.nullValue(); else out.value(wall.name());
+                }
+                out.endArray();
+            }
+            if (space.actions != null) {
+                out.name("actions").beginArray();
+                for (FieldAction action : space.actions) {
+                    fieldActionAdapter.write(out, action);
+                }
+                out.endArray();
+            }
+            out.name("x").value(space.x);
+            out.name("y").value(space.y);
+            out.name("isPit").value(space.isPit);
+            out.name("startField").value(space.startField);
+            out.name("player").value(space.player);
+            out.endObject();
+        }
+
+        @Override
+        public SpaceTemplate read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            SpaceTemplate space = new SpaceTemplate();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    // a space without walls or actions may have them as null; they are kept as empty lists
+                    case "walls" -> {
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                        } else {
+                            in.beginArray();
+                            while (in.hasNext()) {
+                                space.walls.add(FieldActionRegistry.readHeading(in));
+                            }
+                            in.endArray();
+                        }
+                    }
+                    case "actions" -> {
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                        } else {
+                            in.beginArray();
+                            while (in.hasNext()) {
+                                space.actions.add(fieldActionAdapter.read(in));
+                            }
+                            in.endArray();
+                        }
+                    }
+                    case "x" -> space.x = in.nextInt();
+                    case "y" -> space.y = in.nextInt();
+                    case "isPit" -> space.isPit = in.nextBoolean();
+                    case "startField" -> space.startField = in.nextBoolean();
+                    case "player" -> space.player = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return space;
+        }
+    }
+
+    private class BoardTemplateAdapter extends TypeAdapter<BoardTemplate> {
+        @Override
+        public void write(JsonWriter out, BoardTemplate board) throws IOException {
+            if (board == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("width").value(board.width);
+            out.name("height").value(board.height);
+            out.name("antennaX").value(board.antennaX);
+            out.name("antennaY").value(board.antennaY);
+            out.name("antennaHeading").value(board.antennaHeading);
+            out.name("rebootStationX").value(board.rebootStationX);
+            out.name("rebootStationY").value(board.rebootStationY);
+            out.name("rebootStationHeading").value(board.rebootStationHeading);
+            if (board.spaces != null) {
+                out.name("spaces").beginArray();
+                for (SpaceTemplate space : board.spaces) {
+                    spaceAdapter.write(out, space);
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public BoardTemplate read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            BoardTemplate board = new BoardTemplate();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "width" -> board.width = in.nextInt();
+                    case "height" -> board.height = in.nextInt();
+                    case "antennaX" -> board.antennaX = in.nextInt();
+                    case "antennaY" -> board.antennaY = in.nextInt();
+                    case "antennaHeading" -> board.antennaHeading = in.nextInt();
+                    case "rebootStationX" -> board.rebootStationX = in.nextInt();
+                    case "rebootStationY" -> board.rebootStationY = in.nextInt();
+                    case "rebootStationHeading" -> board.rebootStationHeading = in.nextInt();
+                    case "spaces" -> {
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                        } else {
+                            List<SpaceTemplate> spaces = board.width > 0 && board.height > 0
+                                    ? new ArrayList<>(board.width * board.height) : new ArrayList<>();
+                            in.beginArray();
+                            while (in.hasNext()) {
+                                spaces.add(spaceAdapter.read(in));
+                            }
+                            in.endArray();
+                            board.spaces = spaces;
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return board;
+        }
+    }
+
+    private static class PlayerTemplateAdapter extends TypeAdapter<PlayerTemplate> {
+        @Override
+        public void write(JsonWriter out, PlayerTemplate player) throws IOException {
+            if (player == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(player.id);
+            writeString(out, "name", player.name);
+            writeString(out, "color", player.color);
+            out.name("xPosition").value(player.xPosition);
+            out.name("yPosition").value(player.yPosition);
+            out.name("heading").value(player.heading);
+            writeIntList(out, "drawPile", player.drawPile);
+            writeIntList(out, "discardPile", player.discardPile);
+            writeIntArray(out, "program", player.program);
+            writeIntArray(out, "hand", player.hand);
+            writeIntArray(out, "permanent", player.permanent);
+            writeBooleanArray(out, "permanentActive", player.permanentActive);
+            writeIntArray(out, "temporary", player.temporary);
+            writeBooleanArray(out, "temporaryActive", player.temporaryActive);
+            out.name("checkpoints").value(player.checkpoints);
+            out.name("energyBank").value(player.energyBank);
+            out.name("rebooting").value(player.rebooting);
+            out.endObject();
+        }
+
+        @Override
+        public PlayerTemplate read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            PlayerTemplate player = new PlayerTemplate();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id" -> player.id = in.nextInt();
+                    case "name" -> player.name = readString(in);
+                    case "color" -> player.color = readString(in);
+                    case "xPosition" -> player.xPosition = in.nextInt();
+                    case "yPosition" -> player.yPosition = in.nextInt();
+                    case "heading" -> player.heading = in.nextInt();
+                    case "drawPile" -> player.drawPile = readIntList(in);
+                    case "discardPile" -> player.discardPile = readIntList(in);
+                    case "program" -> player.program = readIntArray(in, NO_REGISTERS);
+                    case "hand" -> player.hand = readIntArray(in, NO_CARDS);
+                    case "permanent" -> player.permanent = readIntArray(in, NO_UPGRADE_CARDS);
+                    case "permanentActive" -> player.permanentActive = readBooleanArray(in, NO_UPGRADE_CARDS);
+                    case "temporary" -> player.temporary = readIntArray(in, NO_UPGRADE_CARDS);
+                    case "temporaryActive" -> player.temporaryActive = readBooleanArray(in, NO_UPGRADE_CARDS);
+                    case "checkpoints" -> player.checkpoints = in.nextInt();
+                    case "energyBank" -> player.energyBank = in.nextInt();
+                    case "rebooting" -> player.rebooting = in.nextBoolean();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return player;
+        }
+    }
+
+    private class GameTemplateAdapter extends TypeAdapter<GameTemplate> {
+        @Override
+        public void write(JsonWriter out, GameTemplate gameState) throws IOException {
+            if (gameState == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("gameId").value(gameState.gameId);
+            if (gameState.board != null) {
+                out.name("board");
+                boardAdapter.write(out, gameState.board);
+            }
+            if (gameState.players != null) {
+                out.name("players").beginArray();
+                for (PlayerTemplate player : gameState.players) {
+                    playerAdapter.write(out, player);
+                }
+                out.endArray();
+            }
+            out.name("currentPlayer").value(gameState.currentPlayer);
+            writeIntList(out, "playerOrder", gameState.playerOrder);
+            out.name("playPhase").value(gameState.playPhase);
+            out.name("step").value(gameState.step);
+            out.name("currentCommand").value(gameState.currentCommand);
+            writeString(out, "winnerName", gameState.winnerName);
+            writeIntList(out, "upgradeShop", gameState.upgradeShop);
+            writeString(out, "timeStamp", gameState.timeStamp);
+            writeString(out, "mapName", gameState.mapName);
+            writeString(out, "boardHash", gameState.boardHash);
+            writeIntArray(out, "energyCubes", gameState.energyCubes);
+            out.endObject();
+        }
+
+        @Override
+        public GameTemplate read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            GameTemplate gameState = new GameTemplate();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "gameId" -> gameState.gameId = in.nextInt();
+                    case "board" -> gameState.board = boardAdapter.read(in);
+                    case "players" -> {
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                        } else {
+                            in.beginArray();
+                            while (in.hasNext()) {
+                                gameState.players.add(playerAdapter.read(in));
+                            }
+                            in.endArray();
+                        }
+                    }
+                    case "currentPlayer" -> gameState.currentPlayer = in.nextInt();
+                    case "playerOrder" -> gameState.playerOrder = readIntList(in);
+                    case "playPhase" -> gameState.playPhase = in.nextInt();
+                    case "step" -> gameState.step = in.nextInt();
+                    case "currentCommand" -> gameState.currentCommand = in.nextInt();
+                    case "winnerName" -> gameState.winnerName = readString(in);
+                    case "upgradeShop" -> gameState.upgradeShop = readIntList(in);
+                    case "timeStamp" -> gameState.timeStamp = readString(in);
+                    case "mapName" -> gameState.mapName = readString(in);
+                    case "boardHash" -> gameState.boardHash = readString(in);
+                    case "energyCubes" -> gameState.energyCubes = readIntArray(in, 8);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return gameState;
+        }
+    }
+}
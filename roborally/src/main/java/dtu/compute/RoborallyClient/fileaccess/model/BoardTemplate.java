@@ -31,7 +31,7 @@ import java.util.List;
  * @author Ekkart Kindler, ekki@dtu.dk
  *
  */
-public class BoardTemplate {
+public class BoardTemplate implements Cloneable {
 
     public int width;
     public int height;
@@ -40,4 +40,17 @@ public class BoardTemplate {
 
     public List<SpaceTemplate> spaces = new ArrayList<>();
 
+    /**
+     * @return a copy of the board with its own list of spaces; the spaces themselves are shared
+     */
+    @Override
+    public BoardTemplate clone() {
+        try {
+            BoardTemplate boardTemplate = (BoardTemplate) super.clone();
+            boardTemplate.spaces = new ArrayList<>(spaces);
+            return boardTemplate;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError();
+        }
+    }
 }
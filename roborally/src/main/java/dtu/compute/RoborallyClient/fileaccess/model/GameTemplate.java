@@ -17,6 +17,12 @@ public class GameTemplate implements Cloneable {
     public List<Integer> upgradeShop = new ArrayList<>();
     public String timeStamp;
 
+    // identify the board, which then may be left out of the game state, see BoardCache
+    public String mapName;
+    public String boardHash;
+    // the energy cubes on each energy cube field of the board, in the order of the spaces; only sent without the board
+    public int[] energyCubes;
+
     @Override
     public GameTemplate clone() {
         try {
@@ -26,6 +32,7 @@ public class GameTemplate implements Cloneable {
                 players.add(player.clone());
             }
             gameTemplate.players = players;
+            if (energyCubes != null) gameTemplate.energyCubes = energyCubes.clone();
             return gameTemplate;
         } catch (CloneNotSupportedException e) {
             throw new AssertionError();
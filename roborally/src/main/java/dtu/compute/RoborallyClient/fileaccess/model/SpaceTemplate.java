@@ -33,7 +33,7 @@ import java.util.List;
  * @author Ekkart Kindler, ekki@dtu.dk
  *
  */
-public class SpaceTemplate {
+public class SpaceTemplate implements Cloneable {
 
     public List<Heading> walls = new ArrayList<>();
     public List<FieldAction> actions = new ArrayList<>();
@@ -44,4 +44,19 @@ public class SpaceTemplate {
     public boolean startField;
     public int player;
 
+    /**
+     * @return a copy of the space with its own lists of walls and actions; the actions themselves are shared
+     */
+    @Override
+    public SpaceTemplate clone() {
+        try {
+            SpaceTemplate spaceTemplate = (SpaceTemplate) super.clone();
+            spaceTemplate.walls = new ArrayList<>(walls);
+            spaceTemplate.actions = new ArrayList<>(actions);
+            return spaceTemplate;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError();
+        }
+    }
+
 }
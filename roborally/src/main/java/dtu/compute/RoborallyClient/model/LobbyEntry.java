@@ -0,0 +1,71 @@
+package dtu.compute.RoborallyClient.model;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A lobby as listed in the lobby browser. The players are only known once the state of the
+ * lobby has been loaded; until then only the id is. Loaded players are considered up to date
+ * until their expiry, after which they are still shown but loaded again.
+ */
+@Getter
+public class LobbyEntry {
+
+    public static final int CAPACITY = 6;
+
+    private final String lobbyId;
+    /** The names of the players, or null if the lobby has not been loaded yet. */
+    private final List<String> players;
+    /** The id and the player names in lower case, matched by the filter of the lobby browser. */
+    private final String searchText;
+    /** The {@link System#nanoTime()} the players are up to date until. */
+    private final long expiresAt;
+
+    public LobbyEntry(String lobbyId) {
+        this(lobbyId, null, System.nanoTime());
+    }
+
+    public LobbyEntry(String lobbyId, List<String> players, long expiresAt) {
+        this.lobbyId = lobbyId;
+        this.expiresAt = expiresAt;
+        this.players = players == null ? null : List.copyOf(players);
+        StringBuilder text = new StringBuilder(lobbyId.toLowerCase(Locale.ROOT));
+        if (players != null) {
+            for (String player : players) {
+                text.append('\n').append(player.toLowerCase(Locale.ROOT));
+            }
+        }
+        this.searchText = text.toString();
+    }
+
+    public boolean isLoaded() {
+        return players != null;
+    }
+
+    /**
+     * @return true if the players are not loaded or have expired
+     */
+    public boolean isStale(long now) {
+        return players == null || now - expiresAt >= 0;
+    }
+
+    /**
+     * @return this lobby with the same players, expired so they are loaded again
+     */
+    public LobbyEntry expired() {
+        return new LobbyEntry(lobbyId, players, System.nanoTime());
+    }
+
+    public boolean isFull() {
+        return players != null && players.size() >= CAPACITY;
+    }
+
+    /**
+     * @param filter text in lower case to look for in the id and the player names
+     */
+    public boolean matches(String filter) {
+        return filter.isEmpty() || searchText.contains(filter);
+    }
+}
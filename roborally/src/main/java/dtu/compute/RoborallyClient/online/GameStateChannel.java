@@ -0,0 +1,97 @@
+package dtu.compute.RoborallyClient.online;
+
+import java.net.URI;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A push channel for the game state of a lobby. The server sends a text message with the
+ * same content as a response from the game state endpoint every time the state changes.
+ * When the connection fails or is closed by the server, the channel calls its closed
+ * handler exactly once, so the caller can fall back to polling.
+ */
+public class GameStateChannel implements WebSocket.Listener {
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final Consumer<String> onMessage;
+    private final Runnable onClosed;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final StringBuilder message = new StringBuilder();
+    private volatile WebSocket webSocket;
+
+    private GameStateChannel(Consumer<String> onMessage, Runnable onClosed) {
+        this.onMessage = onMessage;
+        this.onClosed = onClosed;
+    }
+
+    /**
+     * Connects to the game state stream at the given location.
+     * @param onMessage called with every game state pushed by the server
+     * @param onClosed called once when the connection is lost; not called after {@link #close()}
+     * @return a future completing with the open channel, or exceptionally if the server does not offer the stream
+     */
+    public static CompletableFuture<GameStateChannel> open(URI location, Consumer<String> onMessage, Runnable onClosed) {
+        GameStateChannel channel = new GameStateChannel(onMessage, onClosed);
+        return RequestCenter.openWebSocket(location, channel, CONNECT_TIMEOUT).thenApply(webSocket -> channel);
+    }
+
+    /**
+     * Closes the channel without calling the closed handler.
+     */
+    public void close() {
+        if (closed.getAndSet(true)) return;
+        WebSocket webSocket = this.webSocket;
+        if (webSocket != null) {
+            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "").exceptionally(e -> {
+                webSocket.abort();
+                return null;
+            });
+        }
+    }
+
+    public boolean isOpen() {
+        return !closed.get();
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        this.webSocket = webSocket;
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        message.append(data);
+        if (last) {
+            String text = message.toString();
+            message.setLength(0);
+            try {
+                onMessage.accept(text);
+            } catch (RuntimeException e) {
+                System.out.println("Error in game state channel: " + e.getMessage());
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        lost();
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        System.out.println("Game state channel failed: " + error.getMessage());
+        lost();
+    }
+
+    private void lost() {
+        if (!closed.getAndSet(true)) onClosed.run();
+    }
+}
@@ -0,0 +1,141 @@
+package dtu.compute.RoborallyClient.online;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Decodes game state responses in a single pass over the stream. The server sends the
+ * game state as a JSON string inside the JSON response; this string is decoded straight
+ * into a {@link GameTemplate} instead of first building a tree of the whole response and
+ * then parsing the extracted string a second time. The lasers are read in the same pass.
+ */
+public class GameStateDecoder {
+
+    /**
+     * Decodes a response body and closes the stream.
+     * @param gson the Gson instance to decode the game state with (with the FieldAction adapter registered)
+     */
+    public static GameStateUpdate decode(InputStream body, Gson gson) throws IOException {
+        return decode(new InputStreamReader(body, StandardCharsets.UTF_8), gson);
+    }
+
+    /**
+     * Decodes a response and closes the reader.
+     * @param gson the Gson instance to decode the game state with (with the FieldAction adapter registered)
+     */
+    public static GameStateUpdate decode(Reader body, Gson gson) throws IOException {
+        GameStateUpdate update = new GameStateUpdate();
+        try (JsonReader reader = new JsonReader(body)) {
+            reader.setLenient(true);
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                // plain text error message
+                reader.skipValue();
+                return update;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "gameState" -> update.gameState = readGameState(reader, gson);
+                    case "delta" -> update.delta = readDelta(reader);
+                    case "lasers" -> readLasers(reader, update);
+                    case "info" -> update.info = readString(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return update;
+    }
+
+    private static GameTemplate readGameState(JsonReader reader, Gson gson) throws IOException {
+        return switch (reader.peek()) {
+            case STRING -> {
+                JsonReader nested = new JsonReader(new StringReader(reader.nextString()));
+                nested.setLenient(true);
+                yield gson.fromJson(nested, GameTemplate.class);
+            }
+            case BEGIN_OBJECT -> gson.fromJson(reader, GameTemplate.class);
+            default -> {
+                reader.skipValue();
+                yield null;
+            }
+        };
+    }
+
+    private static JsonObject readDelta(JsonReader reader) throws IOException {
+        JsonElement delta = switch (reader.peek()) {
+            case STRING -> new JsonParser().parse(reader.nextString());
+            case BEGIN_OBJECT -> new JsonParser().parse(reader);
+            default -> {
+                reader.skipValue();
+                yield null;
+            }
+        };
+        return delta != null && delta.isJsonObject() ? delta.getAsJsonObject() : null;
+    }
+
+    private static void readLasers(JsonReader reader, GameStateUpdate update) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            int heading = 0;
+            int[] xs = new int[8];
+            int[] ys = new int[8];
+            int length = 0;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "heading" -> heading = reader.nextInt();
+                    case "LOS" -> {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            if (length == xs.length) {
+                                xs = Arrays.copyOf(xs, length * 2);
+                                ys = Arrays.copyOf(ys, length * 2);
+                            }
+                            reader.beginObject();
+                            while (reader.hasNext()) {
+                                switch (reader.nextName()) {
+                                    case "x" -> xs[length] = reader.nextInt();
+                                    case "y" -> ys[length] = reader.nextInt();
+                                    default -> reader.skipValue();
+                                }
+                            }
+                            reader.endObject();
+                            length++;
+                        }
+                        reader.endArray();
+                    }
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            update.lasers.add(new GameStateUpdate.LaserBeam(heading, Arrays.copyOf(xs, length), Arrays.copyOf(ys, length)));
+        }
+        reader.endArray();
+    }
+
+    private static String readString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+}
@@ -0,0 +1,233 @@
+package dtu.compute.RoborallyClient.online;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import dtu.compute.RoborallyClient.fields.FieldAction;
+import dtu.compute.RoborallyClient.fileaccess.TemplateAdapters;
+import dtu.compute.RoborallyClient.fileaccess.model.BoardTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.PlayerTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.SpaceTemplate;
+import dtu.compute.RoborallyClient.model.Heading;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Field-level differences between two versions of a game state. When the client asks for the
+ * game state with the time stamp of the version it holds (see {@link #QUERY}), the server may
+ * answer with a "delta" instead of the full "gameState":
+ * <pre>
+ * {
+ *   "base": time stamp of the version the delta applies to,
+ *   "checksum": {@link #checksum} of the game state after applying the delta,
+ *   "game": the changed fields of the game, except board and players (timeStamp always included),
+ *   "players": [ { "id": ..., the changed fields of the player }, ... ],
+ *   "spaces": [ { "x": ..., "y": ..., the changed fields of the space }, ... ]
+ * }
+ * </pre>
+ * The board layout and the card piles are only sent when they change, which is what makes
+ * up most of a full game state. A delta without a checksum is never applied. The changed fields
+ * are set directly on a copy of the game state; only lists and arrays are decoded with Gson.
+ */
+public class GameStateDelta {
+
+    public static final String QUERY = "delta";
+
+    private static final Gson gson = new GsonBuilder().
+            registerTypeAdapterFactory(new TemplateAdapters()).
+            create();
+    private static final Type INT_LIST = new TypeToken<List<Integer>>() {}.getType();
+    private static final Type HEADING_LIST = new TypeToken<List<Heading>>() {}.getType();
+    private static final Type ACTION_LIST = new TypeToken<List<FieldAction>>() {}.getType();
+
+    /**
+     * Applies a delta to a copy of the given game state and verifies the result.
+     * The given game state itself is not changed, since it may still be shown.
+     * @param base the game state held by the client
+     * @return the new game state, or null if the delta does not apply to the base, is malformed,
+     * has no checksum or the result does not match it, in which case a full game state is needed
+     */
+    public static GameTemplate apply(GameTemplate base, JsonObject delta) {
+        if (base == null || delta == null) {
+            return null;
+        }
+        try {
+            String deltaBase = stringOf(delta, "base");
+            if (deltaBase == null || !deltaBase.equals(base.timeStamp)) {
+                return null;
+            }
+            String checksum = stringOf(delta, "checksum");
+            if (checksum == null) {
+                System.out.println("Game state delta without checksum");
+                return null;
+            }
+            GameTemplate gameState = applyGame(base, delta.getAsJsonObject("game"));
+            if (delta.has("players") && !applyPlayers(gameState, delta.getAsJsonArray("players"))) {
+                return null;
+            }
+            if (delta.has("spaces") && !applySpaces(gameState, delta.getAsJsonArray("spaces"))) {
+                return null;
+            }
+            if (!checksum.equals(checksum(gameState))) {
+                System.out.println("Game state delta does not match its checksum");
+                return null;
+            }
+            return gameState;
+        } catch (RuntimeException e) {
+            // any malformed field, e.g. an id which is no number, means a full game state is needed
+            System.out.println("Could not apply game state delta: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * The CRC-32, as a hexadecimal string, of the compact JSON of the game state as written by
+     * {@link TemplateAdapters}, i.e. with the fields in the order of the template classes.
+     */
+    public static String checksum(GameTemplate gameState) {
+        CRC32 crc = new CRC32();
+        try (Writer writer = new OutputStreamWriter(new CheckedOutputStream(OutputStream.nullOutputStream(), crc), StandardCharsets.UTF_8)) {
+            gson.toJson(gameState, GameTemplate.class, new JsonWriter(writer));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static GameTemplate applyGame(GameTemplate base, JsonObject changes) {
+        GameTemplate gameState = base.clone();
+        if (changes != null) {
+            for (Map.Entry<String, JsonElement> change : changes.entrySet()) {
+                JsonElement value = change.getValue();
+                switch (change.getKey()) {
+                    case "gameId" -> gameState.gameId = value.getAsInt();
+                    case "currentPlayer" -> gameState.currentPlayer = value.getAsInt();
+                    case "playerOrder" -> gameState.playerOrder = listOf(value, INT_LIST);
+                    case "playPhase" -> gameState.playPhase = value.getAsInt();
+                    case "step" -> gameState.step = value.getAsInt();
+                    case "currentCommand" -> gameState.currentCommand = value.getAsInt();
+                    case "winnerName" -> gameState.winnerName = stringOrNull(value);
+                    case "upgradeShop" -> gameState.upgradeShop = listOf(value, INT_LIST);
+                    case "timeStamp" -> gameState.timeStamp = stringOrNull(value);
+                    case "mapName" -> gameState.mapName = stringOrNull(value);
+                    case "boardHash" -> gameState.boardHash = stringOrNull(value);
+                    case "energyCubes" -> gameState.energyCubes = gson.fromJson(value, int[].class);
+                    // the board and players are patched separately
+                    default -> { }
+                }
+            }
+        }
+        // the spaces are shared until they are patched
+        gameState.board = base.board == null ? null : base.board.clone();
+        return gameState;
+    }
+
+    /**
+     * Patches the players of the game state, which are copies of those of the base already.
+     */
+    private static boolean applyPlayers(GameTemplate gameState, JsonArray changes) {
+        for (JsonElement element : changes) {
+            JsonObject change = element.getAsJsonObject();
+            if (!isNumber(change, "id")) return false;
+            int id = change.get("id").getAsInt();
+            PlayerTemplate player = null;
+            for (PlayerTemplate candidate : gameState.players) {
+                if (candidate.id == id) player = candidate;
+            }
+            if (player == null) return false;
+            for (Map.Entry<String, JsonElement> field : change.entrySet()) {
+                JsonElement value = field.getValue();
+                switch (field.getKey()) {
+                    case "name" -> player.name = stringOrNull(value);
+                    case "color" -> player.color = stringOrNull(value);
+                    case "xPosition" -> player.xPosition = value.getAsInt();
+                    case "yPosition" -> player.yPosition = value.getAsInt();
+                    case "heading" -> player.heading = value.getAsInt();
+                    case "drawPile" -> player.drawPile = listOf(value, INT_LIST);
+                    case "discardPile" -> player.discardPile = listOf(value, INT_LIST);
+                    case "program" -> player.program = gson.fromJson(value, int[].class);
+                    case "hand" -> player.hand = gson.fromJson(value, int[].class);
+                    case "permanent" -> player.permanent = gson.fromJson(value, int[].class);
+                    case "permanentActive" -> player.permanentActive = gson.fromJson(value, boolean[].class);
+                    case "temporary" -> player.temporary = gson.fromJson(value, int[].class);
+                    case "temporaryActive" -> player.temporaryActive = gson.fromJson(value, boolean[].class);
+                    case "checkpoints" -> player.checkpoints = value.getAsInt();
+                    case "energyBank" -> player.energyBank = value.getAsInt();
+                    case "rebooting" -> player.rebooting = value.getAsBoolean();
+                    default -> { }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean applySpaces(GameTemplate gameState, JsonArray changes) {
+        BoardTemplate board = gameState.board;
+        if (board == null) return false;
+        for (JsonElement element : changes) {
+            JsonObject change = element.getAsJsonObject();
+            if (!isNumber(change, "x") || !isNumber(change, "y")) return false;
+            int x = change.get("x").getAsInt();
+            int y = change.get("y").getAsInt();
+            int index = x * board.height + y;
+            if (x < 0 || x >= board.width || y < 0 || y >= board.height || index >= board.spaces.size()) return false;
+            // the space is still shared with the base, so it is copied before it is patched
+            SpaceTemplate space = board.spaces.get(index).clone();
+            for (Map.Entry<String, JsonElement> field : change.entrySet()) {
+                JsonElement value = field.getValue();
+                switch (field.getKey()) {
+                    case "walls" -> space.walls = listOf(value, HEADING_LIST);
+                    case "actions" -> space.actions = listOf(value, ACTION_LIST);
+                    case "isPit" -> space.isPit = value.getAsBoolean();
+                    case "startField" -> space.startField = value.getAsBoolean();
+                    case "player" -> space.player = value.getAsInt();
+                    // x and y name the space and are checked above
+                    default -> { }
+                }
+            }
+            board.spaces.set(index, space);
+        }
+        return true;
+    }
+
+    private static String stringOrNull(JsonElement value) {
+        return value.isJsonNull() ? null : value.getAsString();
+    }
+
+    /**
+     * Decodes a list field; like the {@link TemplateAdapters}, a null list is read as an empty one.
+     */
+    private static <T> List<T> listOf(JsonElement value, Type type) {
+        List<T> list = gson.fromJson(value, type);
+        return list != null ? list : new ArrayList<>();
+    }
+
+    /**
+     * @return the string value of the member, or null if it is missing or not a string or number
+     */
+    private static String stringOf(JsonObject object, String name) {
+        JsonElement element = object.get(name);
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+    }
+
+    private static boolean isNumber(JsonObject object, String name) {
+        JsonElement element = object.get(name);
+        return element != null && element.isJsonPrimitive() && element.getAsJsonPrimitive().isNumber();
+    }
+}
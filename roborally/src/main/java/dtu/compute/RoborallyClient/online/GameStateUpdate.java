@@ -0,0 +1,34 @@
+package dtu.compute.RoborallyClient.online;
+
+import com.google.gson.JsonObject;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The content of a game state response from the server: the game state itself, the lasers
+ * fired in the last step and, for failed requests, the info message explaining why.
+ * Instead of the game state, the server may send a {@link GameStateDelta} to the version the client holds.
+ */
+public class GameStateUpdate {
+    public GameTemplate gameState;
+    public JsonObject delta;
+    public List<LaserBeam> lasers = new ArrayList<>();
+    public String info;
+
+    /**
+     * The line of sight of one laser, as the coordinates of the spaces it passes through.
+     */
+    public static class LaserBeam {
+        public int heading;
+        public int[] x;
+        public int[] y;
+
+        public LaserBeam(int heading, int[] x, int[] y) {
+            this.heading = heading;
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package dtu.compute.RoborallyClient.online;
+
+import com.google.gson.JsonObject;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Request parameters and pacing for a long-poll loop. Each request asks the server to hold it
+ * for up to the hold time, or until the resource differs from the version the client already has,
+ * and a new request is issued as soon as the previous one returns.
+ * Servers that do not support holding simply answer right away; the loop then falls back to
+ * polling with the minimum interval, so it never spins.
+ */
+public class LongPoll {
+    /** Hold time requested from the server; can be changed with -Droborally.longPollHoldMillis=... */
+    public static final Duration DEFAULT_HOLD = Duration.ofMillis(Long.getLong("roborally.longPollHoldMillis", 25000));
+    /** Extra time on top of the hold time before the client gives up on a request. */
+    private static final Duration GRACE = Duration.ofSeconds(5);
+    private static final long MAX_BACKOFF_MILLIS = 10000;
+
+    private final Duration hold;
+    private final Duration minInterval;
+    private int failures;
+
+    public LongPoll(Duration minInterval) {
+        this(DEFAULT_HOLD, minInterval);
+    }
+
+    /**
+     * @param hold how long the server may hold a request
+     * @param minInterval minimum time between two requests when the server answers without a change
+     */
+    public LongPoll(Duration hold, Duration minInterval) {
+        this.hold = hold;
+        this.minInterval = minInterval;
+    }
+
+    /**
+     * @param resource the URI of the resource
+     * @param version the last version seen by the client, or null if there is none
+     * @return the URI of the resource with the wait and since parameters
+     */
+    public URI uri(URI resource, String version) {
+        String query = "?wait=" + hold.toMillis();
+        if (version != null) {
+            query += "&since=" + URLEncoder.encode(version, StandardCharsets.UTF_8);
+        }
+        return URI.create(resource + query);
+    }
+
+    /**
+     * @return the time to wait for a response before the request is considered lost
+     */
+    public Duration timeout() {
+        return hold.plus(GRACE);
+    }
+
+    /**
+     * Computes the pause before the next request after a response has arrived.
+     * @param changed whether the response carried a new version
+     * @param startNanos {@link System#nanoTime()} when the request was sent
+     * @return the pause in milliseconds; 0 if the next request should go out immediately
+     */
+    public long delayAfter(boolean changed, long startNanos) {
+        failures = 0;
+        if (changed) {
+            return 0;
+        }
+        long elapsed = Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+        long remaining = minInterval.toMillis() - elapsed;
+        if (remaining <= 0) {
+            return 0;
+        }
+        // the server did not hold the request; spread clients out so they do not poll in lockstep
+        return remaining + ThreadLocalRandom.current().nextLong(minInterval.toMillis() / 4 + 1);
+    }
+
+    /**
+     * Computes the pause before retrying after a failed request, using exponential backoff with full jitter.
+     * @return the pause in milliseconds
+     */
+    public long delayAfterFailure() {
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, minInterval.toMillis() << Math.min(failures, 16));
+        failures++;
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * @return the version stated by the server in the given content, or null if it does not state one
+     */
+    public static String versionOf(JsonObject content) {
+        if (content == null || !content.has("version") || content.get("version").isJsonNull()) {
+            return null;
+        }
+        return content.get("version").getAsString();
+    }
+}
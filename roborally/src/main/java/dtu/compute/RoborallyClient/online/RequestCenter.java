@@ -1,38 +1,59 @@
 package dtu.compute.RoborallyClient.online;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 public abstract class RequestCenter {
-    private static final HttpClient client = HttpClient.newBuilder().build();
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private static volatile HttpClient client = HttpClient.newBuilder().build();
     private static final JsonParser jsonParser = new JsonParser();
 
+    /**
+     * Replaces the executor used for asynchronous requests and the completion stages
+     * depending on them. Requests already in flight finish on the executor they were sent with.
+     * @param executor the executor, or null to go back to the default executor of the HttpClient
+     */
+    public static void setExecutor(Executor executor) {
+        HttpClient.Builder builder = HttpClient.newBuilder();
+        if (executor != null) builder.executor(executor);
+        client = builder.build();
+    }
+
     public static Response<String> postRequest(URI location, Map<String, Object> args) throws IOException, InterruptedException{
-        ObjectMapper objectMapper = new ObjectMapper();
-        String jsonString = objectMapper.writeValueAsString(args);
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(location)
                 .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(jsonString))
+                .POST(HttpRequest.BodyPublishers.ofString(toJsonString(args)))
                 .build();
-        HttpResponse<String> httpResponse = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> httpResponse = send(request, HttpResponse.BodyHandlers.ofString());
         return new Response<>(httpResponse);
     }
 
     public static Response<String> getRequest(URI location) throws IOException, InterruptedException{
         HttpRequest request = HttpRequest.newBuilder(location).GET().build();
-        HttpResponse<String> httpResponse = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> httpResponse = send(request, HttpResponse.BodyHandlers.ofString());
         return new Response<>(httpResponse);
     }
 
@@ -42,12 +63,237 @@ public abstract class RequestCenter {
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(json.toString()))
                 .build();
-        HttpResponse<String> httpResponse = client.send(request, HttpResponse.BodyHandlers.ofString());
-        Response<String> response = new Response<>(httpResponse);
+        HttpResponse<String> httpResponse = send(request, HttpResponse.BodyHandlers.ofString());
+        return parsePosted(location, json, new Response<>(httpResponse));
+    }
+
+    public static Response<JsonObject> getRequestJson(URI location) throws IOException, InterruptedException{
+        return parseFetched(location, getRequest(location));
+    }
+
+    public static CompletableFuture<Response<String>> postRequestAsync(URI location, Map<String, Object> args) {
+        return postRequestAsync(location, args, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Asynchronous version of {@link #postRequest(URI, Map)}. Cancelling the returned future
+     * also cancels the underlying exchange.
+     * @param timeout time to wait for the response before failing with an HttpTimeoutException
+     */
+    public static CompletableFuture<Response<String>> postRequestAsync(URI location, Map<String, Object> args, Duration timeout) {
+        String jsonString;
+        try {
+            jsonString = toJsonString(args);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(location)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(jsonString))
+                .build();
+        return sendAsync(request);
+    }
+
+    public static CompletableFuture<Response<String>> getRequestAsync(URI location) {
+        return getRequestAsync(location, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Asynchronous version of {@link #getRequest(URI)}. Cancelling the returned future
+     * also cancels the underlying exchange.
+     * @param timeout time to wait for the response before failing with an HttpTimeoutException
+     */
+    public static CompletableFuture<Response<String>> getRequestAsync(URI location, Duration timeout) {
+        HttpRequest request = HttpRequest.newBuilder(location).timeout(timeout).GET().build();
+        return sendAsync(request);
+    }
+
+    public static CompletableFuture<Response<JsonObject>> postRequestJsonAsync(URI location, JsonElement json) {
+        return postRequestJsonAsync(location, json, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Asynchronous version of {@link #postRequestJson(URI, JsonElement)}.
+     * @param timeout time to wait for the response before failing with an HttpTimeoutException
+     */
+    public static CompletableFuture<Response<JsonObject>> postRequestJsonAsync(URI location, JsonElement json, Duration timeout) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(location)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json.toString()))
+                .build();
+        return thenApplyCancellable(sendAsync(request), response -> parsePosted(location, json, response));
+    }
+
+    public static CompletableFuture<Response<JsonObject>> getRequestJsonAsync(URI location) {
+        return getRequestJsonAsync(location, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Asynchronous version of {@link #getRequestJson(URI)}.
+     * @param timeout time to wait for the response before failing with an HttpTimeoutException
+     */
+    public static CompletableFuture<Response<JsonObject>> getRequestJsonAsync(URI location, Duration timeout) {
+        return thenApplyCancellable(getRequestAsync(location, timeout), response -> parseFetched(location, response));
+    }
+
+    /**
+     * Opens a WebSocket on the same HttpClient (and thereby the same executor) as the requests.
+     * @param timeout time to wait for the opening handshake
+     */
+    public static CompletableFuture<WebSocket> openWebSocket(URI location, WebSocket.Listener listener, Duration timeout) {
+        return client.newWebSocketBuilder()
+                .connectTimeout(timeout)
+                .buildAsync(ServerPool.resolve(location), listener);
+    }
+
+    /**
+     * Conditional version of {@link #getRequestJsonAsync(URI, Duration)}. The validators of the previous
+     * response are sent as If-None-Match and If-Modified-Since. If the server answers 304, the body is
+     * discarded unread and the returned response has no item and {@link Response#isNotModified()} set.
+     * @param previous the validators of the last response for this resource, or null for an unconditional request
+     */
+    public static CompletableFuture<Response<JsonObject>> getRequestJsonAsync(URI location, Response<?> previous, Duration timeout) {
+        return thenApplyCancellable(sendAsync(conditionalGet(location, previous, timeout)), response -> response.isNotModified()
+                ? new Response<>(response.getStatusCode(), null, response.getHeaders())
+                : parseFetched(location, response));
+    }
+
+    /**
+     * Fetches a game state response and decodes it with {@link GameStateDecoder} while it is received,
+     * without materialising the body as a string first. Conditional like {@link #getRequestJsonAsync(URI, Response, Duration)}:
+     * a 304 response has no item.
+     * @param gson the Gson instance to decode the game state with
+     */
+    public static CompletableFuture<Response<GameStateUpdate>> getGameStateAsync(URI location, Response<?> previous, Duration timeout, Gson gson) {
+        CompletableFuture<HttpResponse<InputStream>> sent = sendAsync(conditionalGet(location, previous, timeout), HttpResponse.BodyHandlers.ofInputStream());
+        return thenApplyCancellable(sent, response -> decodeGameState(response, gson));
+    }
+
+    /**
+     * Posts to an endpoint answering with a game state and decodes the answer like {@link #getGameStateAsync}.
+     * @param gson the Gson instance to decode the game state with
+     */
+    public static CompletableFuture<Response<GameStateUpdate>> postGameStateAsync(URI location, JsonElement json, Duration timeout, Gson gson) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(location)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json.toString()))
+                .build();
+        CompletableFuture<HttpResponse<InputStream>> sent = sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        return thenApplyCancellable(sent, response -> decodeGameState(response, gson));
+    }
+
+    private static HttpRequest conditionalGet(URI location, Response<?> previous, Duration timeout) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(location).timeout(timeout).GET();
+        if (previous != null) {
+            previous.getETag().ifPresent(eTag -> builder.header("If-None-Match", eTag));
+            previous.getLastModified().ifPresent(date -> builder.header("If-Modified-Since", date));
+        }
+        return builder.build();
+    }
+
+    private static Response<GameStateUpdate> decodeGameState(HttpResponse<InputStream> response, Gson gson) {
+        HttpStatusCode code = HttpStatusCode.valueOf(response.statusCode());
+        try (InputStream body = response.body()) {
+            if (code.value() == HttpStatus.NOT_MODIFIED.value() || code == HttpStatus.NOT_FOUND)
+                return new Response<>(code, null, response.headers());
+            return new Response<>(code, GameStateDecoder.decode(body, gson), response.headers());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static CompletableFuture<Response<String>> sendAsync(HttpRequest request) {
+        return thenApplyCancellable(sendAsync(request, RequestCenter::stringUnlessNotModified), Response::new);
+    }
+
+    /**
+     * Sends a request to its server, or to another one if the server is down or cannot be connected to
+     * and the request is not tied to a lobby (see {@link ServerPool}).
+     */
+    private static <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            HttpRequest resolved = ServerPool.resolve(request);
+            try {
+                return client.send(resolved, handler);
+            } catch (IOException e) {
+                if (attempt >= ServerPool.getNodes().size() || !ServerPool.failed(resolved.uri(), e)) throw e;
+            }
+        }
+    }
+
+    /**
+     * Asynchronous version of {@link #send(HttpRequest, HttpResponse.BodyHandler)}. Cancelling the
+     * returned future cancels the exchange in flight.
+     */
+    private static <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        sendAsync(request, handler, result, ServerPool.getNodes().size());
+        return result;
+    }
+
+    private static <T> void sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler, CompletableFuture<HttpResponse<T>> result, int attempts) {
+        HttpRequest resolved = ServerPool.resolve(request);
+        CompletableFuture<HttpResponse<T>> sent = client.sendAsync(resolved, handler);
+        result.whenComplete((value, e) -> {
+            if (result.isCancelled()) sent.cancel(true);
+        });
+        sent.whenComplete((response, e) -> {
+            if (e == null) {
+                result.complete(response);
+            } else if (attempts > 1 && !result.isDone() && ServerPool.failed(resolved.uri(), e)) {
+                sendAsync(request, handler, result, attempts - 1);
+            } else {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Sends a GET request to exactly the given URI, without going to another server, for the health checks.
+     * @return the status code of the response
+     */
+    static CompletableFuture<Integer> probe(URI location, Duration timeout) {
+        HttpRequest request = HttpRequest.newBuilder(location).timeout(timeout).GET().build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+    }
+
+    /**
+     * Reads the body as a string, except for 304 responses, whose (empty) body is discarded.
+     */
+    private static HttpResponse.BodySubscriber<String> stringUnlessNotModified(HttpResponse.ResponseInfo info) {
+        if (info.statusCode() == HttpStatus.NOT_MODIFIED.value())
+            return HttpResponse.BodySubscribers.replacing(null);
+        return HttpResponse.BodyHandlers.ofString().apply(info);
+    }
+
+    /**
+     * Like {@link CompletableFuture#thenApply}, but cancelling the returned stage also cancels
+     * the source, so a cancelled call does not keep the request running.
+     */
+    private static <T, U> CompletableFuture<U> thenApplyCancellable(CompletableFuture<T> source, Function<? super T, ? extends U> fn) {
+        CompletableFuture<U> result = source.thenApply(fn);
+        result.whenComplete((value, e) -> {
+            if (result.isCancelled()) source.cancel(true);
+        });
+        return result;
+    }
+
+    private static String toJsonString(Map<String, Object> args) throws JsonProcessingException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        return objectMapper.writeValueAsString(args);
+    }
+
+    private static Response<JsonObject> parsePosted(URI location, JsonElement json, Response<String> response) {
         try {
             if (response.getItem().isEmpty())
-                return new Response<>(response.getStatusCode(), null);
-            return new Response<>(response.getStatusCode(), jsonParser.parse(response.item).getAsJsonObject());
+                return new Response<>(response.getStatusCode(), null, response.getHeaders());
+            return new Response<>(response.getStatusCode(), jsonParser.parse(response.item).getAsJsonObject(), response.getHeaders());
         } catch (IllegalStateException e) {
             System.out.println("posted to: " + location + "with payload: " + json);
             System.out.println("response: " + response);
@@ -55,12 +301,11 @@ public abstract class RequestCenter {
         }
     }
 
-    public static Response<JsonObject> getRequestJson(URI location) throws IOException, InterruptedException{
-        Response<String> response = getRequest(location);
+    private static Response<JsonObject> parseFetched(URI location, Response<String> response) {
         try {
             if (response.getStatusCode() == HttpStatus.NOT_FOUND)
-                return new Response<>(response.getStatusCode(), null);
-            return new Response<>(response.getStatusCode(), jsonParser.parse(response.item).getAsJsonObject());
+                return new Response<>(response.getStatusCode(), null, response.getHeaders());
+            return new Response<>(response.getStatusCode(), jsonParser.parse(response.item).getAsJsonObject(), response.getHeaders());
         } catch (IllegalStateException e) {
             System.out.println("got from: " + location);
             System.out.println("response: " + response);
@@ -10,10 +10,27 @@ import java.net.URI;
  */
 @Component
 public class ResourceLocation {
+    /**
+     * @return the URI of the path on the preferred server, for requests not belonging to a lobby
+     */
     public static URI makeUri(String path) {
-        return URI.create(baseLocation + path);
+        return makeUri(ServerPool.preferred(), path);
     }
 
+    public static URI makeUri(ServerPool.Node server, String path) {
+        return URI.create(server.getLocation() + path);
+    }
+
+    public static URI makeWebSocketUri(ServerPool.Node server, String path) {
+        return URI.create(server.getLocation().replaceFirst("^http", "ws") + path);
+    }
+
+    /**
+     * @return the path of the page of the lobby list starting at offset with at most limit lobbies
+     */
+    public static String lobbiesPagePath(int offset, int limit) {
+        return lobbies + "?offset=" + offset + "&limit=" + limit;
+    }
     public static String lobbyPath(String lobbyId) {
         return lobby.replace("{lobbyId}", lobbyId);
     }
@@ -32,6 +49,9 @@ public class ResourceLocation {
     public static String gameStatePath(String lobbyId) {
         return gameState.replace("{lobbyId}", lobbyId);
     }
+    public static String gameStateStreamPath(String lobbyId, String playerName) {
+        return gameStateStream.replace("{lobbyId}", lobbyId).replace("{playerName}", playerName);
+    }
     public static String gameSavePath(String lobbyId) {
         return gameSave.replace("{lobbyId}", lobbyId);
     }
@@ -60,7 +80,6 @@ public class ResourceLocation {
         return activateUpgrade.replace("{lobbyId}", lobbyId).replace("{playerId}", playerId + "");
     }
 
-    public static final String baseLocation = "http://localhost:8080";
     public static final String lobbies = "/lobbies";
     public static final String lobby = lobbies + "/{lobbyId}";
     public static final String game = lobby + "/game";
@@ -68,6 +87,7 @@ public class ResourceLocation {
     public static final String leaveLobby = lobby + "/leave";
     public static final String lobbyState = lobby + "/state";
     public static final String gameState = game + "/state";
+    public static final String gameStateStream = gameState + "/stream/{playerName}";
     public static final String gameLoad = game + "/load";
     public static final String gameSave = game + "/save";
     public static final String players = game + "/players";
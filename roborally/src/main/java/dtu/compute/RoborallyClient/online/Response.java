@@ -1,22 +1,54 @@
 package dtu.compute.RoborallyClient.online;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 
+import java.net.URI;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public class Response<T> {
+    private static final HttpHeaders NO_HEADERS = HttpHeaders.of(Map.of(), (name, value) -> true);
+
     protected HttpStatusCode code;
     protected T item;
+    protected HttpHeaders headers;
+    protected URI uri;
 
     public Response(HttpResponse<T> httpResponse) {
         this.code = HttpStatusCode.valueOf(httpResponse.statusCode());
         this.item = httpResponse.body();
+        this.headers = httpResponse.headers();
+        this.uri = httpResponse.uri();
     }
 
     public Response(HttpStatusCode code, T item) {
+        this(code, item, NO_HEADERS);
+    }
+
+    public Response(HttpStatusCode code, T item, HttpHeaders headers) {
         this.code = code;
         this.item = item;
+        this.headers = headers;
+    }
+
+    /**
+     * Creates a response carrying only the given validators, for resources whose version is
+     * known from their content rather than from the headers of an earlier response.
+     * @param eTag the entity tag including quotes, or null
+     * @param lastModified an HTTP date, or null
+     */
+    public static Response<Void> ofValidators(String eTag, String lastModified) {
+        Map<String, List<String>> headers = new HashMap<>();
+        if (eTag != null) headers.put("ETag", List.of(eTag));
+        if (lastModified != null) headers.put("Last-Modified", List.of(lastModified));
+        return new Response<>(HttpStatus.OK, null, HttpHeaders.of(headers, (name, value) -> true));
     }
+
     public HttpStatusCode getStatusCode() {
         return code;
     }
@@ -24,4 +56,43 @@ public class Response<T> {
     public T getItem() {
         return item;
     }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return the URI the response was received from, or null if it was not received as it is
+     */
+    public URI getUri() {
+        return uri;
+    }
+
+    public Optional<String> getETag() {
+        return headers.firstValue("ETag");
+    }
+
+    public Optional<String> getLastModified() {
+        return headers.firstValue("Last-Modified");
+    }
+
+    public boolean hasValidators() {
+        return getETag().isPresent() || getLastModified().isPresent();
+    }
+
+    /**
+     * @return true if the server answered a conditional request with 304, i.e. the
+     * version named by the validators is still current and no body was sent
+     */
+    public boolean isNotModified() {
+        return code.value() == HttpStatus.NOT_MODIFIED.value();
+    }
+
+    /**
+     * @return a response with the status and validators of this one but without the item,
+     * so it can be kept for the next conditional request without holding on to the body
+     */
+    public Response<Void> validators() {
+        return new Response<>(code, null, headers);
+    }
 }
@@ -0,0 +1,333 @@
+package dtu.compute.RoborallyClient.online;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The servers the client can talk to, given with -Droborally.servers=http://a:8080,http://b:8080
+ * (or a single one with -Droborally.server=...). A server may have a base path, e.g.
+ * http://a:8080/api, and several servers may share a host and port with different base paths.
+ * With more than one server, every server is health checked in the background and its latency
+ * kept as a moving average.
+ * <p>
+ * Lobbies are browsed on the healthy server with the lowest latency ({@link #preferred()}). This
+ * is the latency-aware selection: the servers do not share their lobbies, so the pages of the
+ * lobby list have to come from one server, and spreading the requests over the servers by weight
+ * would mix the lists of several servers.
+ * Every lobby has a home server, the one it was created on or listed by, and all requests
+ * of the lobby and its game go to the home server, since no other server knows the lobby.
+ * If a request cannot connect to its server, the server is marked as down. Requests not tied to a
+ * lobby (listing lobbies, creating one) are then sent again to another server; while a server is
+ * down all of them go to the same substitute, until a health check finds the server up again.
+ * Requests to a lobby fail instead.
+ * Requests are only sent again if they could not connect, so they never reach two servers.
+ */
+public final class ServerPool {
+
+    private static final Duration HEALTH_INTERVAL = Duration.ofMillis(Long.getLong("roborally.healthCheckMillis", 5000));
+    private static final Duration HEALTH_TIMEOUT = Duration.ofSeconds(2);
+    /** Weight of the newest health check in the moving average of the latency. */
+    private static final double LATENCY_WEIGHT = 0.3;
+
+    /**
+     * A server, with its health and the metrics of the selection.
+     */
+    public static class Node {
+        private final String location;
+        private final String authority;
+        /** The path of the location, which the paths of the resources on the server start with. */
+        private final String basePath;
+        private volatile boolean healthy = true;
+        /** The moving average of the latency of the health checks in milliseconds, or -1 before the first one. */
+        private volatile double latencyMillis = -1;
+        private final AtomicLong selectionCount = new AtomicLong();
+        private final AtomicLong failureCount = new AtomicLong();
+
+        Node(String location) {
+            this.location = location;
+            URI uri = URI.create(location);
+            this.authority = uri.getRawAuthority();
+            this.basePath = uri.getRawPath() != null ? uri.getRawPath() : "";
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        public double getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        /**
+         * @return the number of times the node was picked as the preferred server
+         */
+        public long getSelectionCount() {
+            return selectionCount.get();
+        }
+
+        /**
+         * @return the number of failed health checks and requests which could not connect
+         */
+        public long getFailureCount() {
+            return failureCount.get();
+        }
+
+        /**
+         * @return true if the URI names a resource on this server, whatever its scheme (http or ws)
+         */
+        private boolean serves(URI uri) {
+            if (authority == null || !authority.equalsIgnoreCase(uri.getRawAuthority())) return false;
+            String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+            return path.startsWith(basePath)
+                    && (path.length() == basePath.length() || basePath.endsWith("/") || path.charAt(basePath.length()) == '/');
+        }
+
+        /**
+         * @return the path of the URI below the base path of this server
+         */
+        private String pathOf(URI uri) {
+            return uri.getRawPath().substring(basePath.length());
+        }
+
+        @Override
+        public String toString() {
+            return location + (healthy ? " up" : " down") + ", " + (latencyMillis < 0 ? "-" : Math.round(latencyMillis))
+                    + " ms, picked " + selectionCount.get() + " times, " + failureCount.get() + " failures";
+        }
+    }
+
+    private static final ServerPool configured = new ServerPool(
+            System.getProperty("roborally.servers", System.getProperty("roborally.server", "http://localhost:8080")).split(","));
+
+    static {
+        if (configured.nodes.size() > 1) {
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(configured::checkAll, 0, HEALTH_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private final List<Node> nodes;
+    private final Map<String, Node> homes = new ConcurrentHashMap<>();
+    private final Map<Node, Node> substitutes = new ConcurrentHashMap<>();
+
+    private ServerPool(String... locations) {
+        List<Node> list = new ArrayList<>();
+        for (String server : locations) {
+            if (server.isBlank()) continue;
+            String location = server.trim().replaceFirst("/+$", "");
+            if (list.stream().anyMatch(node -> node.location.equalsIgnoreCase(location))) {
+                System.out.println("Server " + location + " is given more than once");
+                continue;
+            }
+            list.add(new Node(location));
+        }
+        nodes = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * @return a pool of the given servers, without health checks, for the tests
+     */
+    static ServerPool of(String... locations) {
+        return new ServerPool(locations);
+    }
+
+    public static List<Node> getNodes() {
+        return configured.nodes;
+    }
+
+    /**
+     * @return the healthy server with the lowest latency, for browsing lobbies; the first server if none is healthy
+     */
+    public static Node preferred() {
+        return configured.pick();
+    }
+
+    /**
+     * Remembers the server a lobby lives on.
+     */
+    public static void setHome(String lobbyId, Node node) {
+        configured.homes.put(lobbyId, node);
+    }
+
+    /**
+     * @return the server the lobby lives on, or the preferred server if it is not known
+     */
+    public static Node homeOf(String lobbyId) {
+        Node home = configured.homes.get(lobbyId);
+        return home != null ? home : preferred();
+    }
+
+    /**
+     * @param requested the server the request was sent to
+     * @return the server which answered the response, which is another one than requested if the
+     * request was sent again to a substitute; the requested server if that is not known
+     */
+    public static Node servedBy(Response<?> response, Node requested) {
+        URI uri = response.getUri();
+        Node node = uri != null ? configured.nodeOf(uri) : null;
+        return node != null ? node : requested;
+    }
+
+    /**
+     * @return the URI itself, or the same resource on the substitute of its server if the server is
+     * down and the resource is not tied to a lobby
+     */
+    public static URI resolve(URI uri) {
+        return configured.resolveUri(uri);
+    }
+
+    /**
+     * @return the request itself, or a copy sent to the substitute of its server if the server is down
+     */
+    static HttpRequest resolve(HttpRequest request) {
+        URI uri = resolve(request.uri());
+        if (uri == request.uri()) return request;
+        return HttpRequest.newBuilder(request, (name, value) -> true).uri(uri).build();
+    }
+
+    /**
+     * Called when a request to the given URI failed. If it could not connect, the server is marked as down.
+     * @return true if the request should be sent again, to another server; never for a request to a lobby
+     */
+    static boolean failed(URI uri, Throwable e) {
+        return configured.failedRequest(uri, e);
+    }
+
+    List<Node> nodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the server the URI names a resource on; the one with the longest base path if several match
+     */
+    Node nodeOf(URI uri) {
+        Node match = null;
+        for (Node node : nodes) {
+            if (node.serves(uri) && (match == null || node.basePath.length() > match.basePath.length())) {
+                match = node;
+            }
+        }
+        return match;
+    }
+
+    URI resolveUri(URI uri) {
+        if (nodes.size() < 2) return uri;
+        Node node = nodeOf(uri);
+        if (node == null || node.healthy || isLobbyResource(node, uri)) return uri;
+        Node substitute = substitutes.compute(node, (down, current) ->
+                current != null && current.healthy ? current : pickExcept(down));
+        if (substitute == node) return uri;
+        String location = substitute.location;
+        if (uri.getScheme() != null && uri.getScheme().startsWith("ws")) {
+            location = location.replaceFirst("^http", "ws");
+        }
+        return URI.create(location + node.pathOf(uri) + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : ""));
+    }
+
+    boolean failedRequest(URI uri, Throwable e) {
+        if (nodes.size() < 2 || !isConnectionFailure(e)) return false;
+        Node node = nodeOf(uri);
+        if (node == null) return false;
+        node.failureCount.incrementAndGet();
+        markDown(node, e);
+        return !isLobbyResource(node, uri) && nodes.stream().anyMatch(other -> other.healthy);
+    }
+
+    /**
+     * @return true if the URI names a lobby or anything in it, e.g. its game, rather than the list of lobbies
+     */
+    static boolean isLobbyResource(Node node, URI uri) {
+        return node.serves(uri) && node.pathOf(uri).startsWith(ResourceLocation.lobbies + "/");
+    }
+
+    private Node pick() {
+        Node best = pickExcept(null);
+        best.selectionCount.incrementAndGet();
+        return best;
+    }
+
+    private Node pickExcept(Node excluded) {
+        Node best = null;
+        for (Node node : nodes) {
+            if (node == excluded || !node.healthy) continue;
+            // servers not checked yet come after those with a known latency
+            if (best == null || latencyOrder(node) < latencyOrder(best)) {
+                best = node;
+            }
+        }
+        return best != null ? best : (excluded != null ? excluded : nodes.get(0));
+    }
+
+    private static double latencyOrder(Node node) {
+        return node.latencyMillis < 0 ? Double.MAX_VALUE : node.latencyMillis;
+    }
+
+    private void checkAll() {
+        for (Node node : nodes) {
+            long start = System.nanoTime();
+            URI uri = URI.create(node.location + ResourceLocation.lobbiesPagePath(0, 1));
+            RequestCenter.probe(uri, HEALTH_TIMEOUT).whenComplete((status, e) -> {
+                if (e != null || status >= 500) {
+                    node.failureCount.incrementAndGet();
+                    markDown(node, e != null ? e : new IllegalStateException("status " + status));
+                    return;
+                }
+                double latency = (System.nanoTime() - start) / 1_000_000.0;
+                node.latencyMillis = node.latencyMillis < 0 ? latency : LATENCY_WEIGHT * latency + (1 - LATENCY_WEIGHT) * node.latencyMillis;
+                markUp(node);
+            });
+        }
+    }
+
+    /**
+     * Marks the server as up, so its requests go back to it.
+     */
+    void markUp(Node node) {
+        if (!node.healthy) {
+            node.healthy = true;
+            substitutes.remove(node);
+            System.out.println("Server up: " + node);
+        }
+    }
+
+    private static void markDown(Node node, Throwable e) {
+        if (node.healthy) {
+            node.healthy = false;
+            System.out.println("Server down: " + node + " (" + unwrap(e) + ")");
+        }
+    }
+
+    private static boolean isConnectionFailure(Throwable e) {
+        Throwable cause = unwrap(e);
+        return cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+}
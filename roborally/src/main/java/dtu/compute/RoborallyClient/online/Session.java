@@ -0,0 +1,197 @@
+package dtu.compute.RoborallyClient.online;
+
+import dtu.compute.RoborallyClient.fileaccess.BoardCache;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.PlayerTemplate;
+import lombok.Getter;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * The lobby and player this client plays as, with the URIs of all their endpoints built once.
+ * A session is created when the player enters a lobby; the endpoints of the player are added
+ * by {@link #bindPlayer(GameTemplate)} once the game has started and the player is known.
+ * The URIs with a query, like the game state with the version and the board the client holds,
+ * are built again only when the query changes, so a poll loop asking for the same version
+ * over and over reuses the same URI.
+ * All endpoints are on the home server of the lobby (see {@link ServerPool}).
+ */
+public class Session {
+
+    @Getter
+    private final String lobbyId;
+    @Getter
+    private final String playerName;
+    @Getter
+    private final ServerPool.Node home;
+
+    @Getter
+    private final URI lobbyStateUri;
+    @Getter
+    private final URI leaveLobbyUri;
+    @Getter
+    private final URI gameUri;
+    @Getter
+    private final URI gameStateUri;
+    @Getter
+    private final URI gameStateStreamUri;
+    @Getter
+    private final URI gameSaveUri;
+    @Getter
+    private final URI gameLoadUri;
+    private final QueryUri polledGameStateUri;
+
+    private volatile PlayerEndpoints player;
+
+    public Session(String lobbyId, String playerName) {
+        this.lobbyId = lobbyId;
+        this.playerName = playerName;
+        home = ServerPool.homeOf(lobbyId);
+        lobbyStateUri = ResourceLocation.makeUri(home, ResourceLocation.lobbyStatePath(lobbyId));
+        leaveLobbyUri = ResourceLocation.makeUri(home, ResourceLocation.leaveLobbyPath(lobbyId));
+        gameUri = ResourceLocation.makeUri(home, ResourceLocation.gamePath(lobbyId));
+        gameStateUri = ResourceLocation.makeUri(home, ResourceLocation.gameStatePath(lobbyId) + "/" + playerName);
+        gameStateStreamUri = ResourceLocation.makeWebSocketUri(home, ResourceLocation.gameStateStreamPath(lobbyId, playerName));
+        gameSaveUri = ResourceLocation.makeUri(home, ResourceLocation.gameSavePath(lobbyId));
+        gameLoadUri = ResourceLocation.makeUri(home, ResourceLocation.gameLoadPath(lobbyId));
+        polledGameStateUri = new QueryUri(gameStateUri);
+    }
+
+    /**
+     * Looks up the player of this client in the game state and builds the endpoints of the player.
+     * @return false if the game state has no player with the name of this session
+     */
+    public boolean bindPlayer(GameTemplate gameState) {
+        for (int i = 0; i < gameState.players.size(); i++) {
+            PlayerTemplate candidate = gameState.players.get(i);
+            if (candidate.name.equals(playerName)) {
+                player = new PlayerEndpoints(home, lobbyId, i, candidate.id);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean hasPlayer() {
+        return player != null;
+    }
+
+    /**
+     * @return the id of the player of this client in the game
+     */
+    public int getPlayerId() {
+        return player().id;
+    }
+
+    public URI getReadyUri() {
+        return player().ready;
+    }
+
+    public URI getChoiceUri() {
+        return player().choice;
+    }
+
+    public URI getBuyUpgradeUri() {
+        return player().buyUpgrade;
+    }
+
+    public URI getDiscardUpgradeUri() {
+        return player().discardUpgrade;
+    }
+
+    public URI getActivateUpgradeUri() {
+        return player().activateUpgrade;
+    }
+
+    /**
+     * @param boardHash the hash of the board held by the client, or null if it holds none
+     */
+    public URI getCardMovementUri(String boardHash) {
+        return player().cardMovement.with(null, boardHash);
+    }
+
+    /**
+     * @param since the time stamp of the game state held by the client, or null to ask for the full game state
+     * @param boardHash the hash of the board held by the client, or null if it holds none
+     */
+    public URI getGameStateUri(String since, String boardHash) {
+        return polledGameStateUri.with(since, boardHash);
+    }
+
+    private PlayerEndpoints player() {
+        PlayerEndpoints endpoints = player;
+        if (endpoints == null) {
+            throw new IllegalStateException("The player of " + playerName + " is not known before the game has started");
+        }
+        return endpoints;
+    }
+
+    private static class PlayerEndpoints {
+        final int id;
+        final URI ready;
+        final URI choice;
+        final URI buyUpgrade;
+        final URI discardUpgrade;
+        final URI activateUpgrade;
+        final QueryUri cardMovement;
+
+        /**
+         * The ready and choice endpoints take the position of the player in the list of players,
+         * the others the id of the player.
+         */
+        PlayerEndpoints(ServerPool.Node home, String lobbyId, int index, int id) {
+            this.id = id;
+            ready = ResourceLocation.makeUri(home, ResourceLocation.playerReadyPath(lobbyId, index));
+            choice = ResourceLocation.makeUri(home, ResourceLocation.playerChoicePath(lobbyId, index));
+            buyUpgrade = ResourceLocation.makeUri(home, ResourceLocation.buyUpgradePath(lobbyId, id));
+            discardUpgrade = ResourceLocation.makeUri(home, ResourceLocation.discardUpgradePath(lobbyId, id));
+            activateUpgrade = ResourceLocation.makeUri(home, ResourceLocation.activateUpgradePath(lobbyId, id));
+            cardMovement = new QueryUri(ResourceLocation.makeUri(home, ResourceLocation.playerCardMovementPath(lobbyId, id)));
+        }
+    }
+
+    /**
+     * An endpoint with the query naming the game state and the board held by the client,
+     * remembering the last URI built.
+     */
+    private static class QueryUri {
+        private final URI base;
+        private volatile Built last;
+
+        QueryUri(URI base) {
+            this.base = base;
+        }
+
+        URI with(String since, String boardHash) {
+            Built built = last;
+            if (built != null && Objects.equals(built.since, since) && Objects.equals(built.boardHash, boardHash)) {
+                return built.uri;
+            }
+            String query = "";
+            if (since != null) {
+                query += "?" + GameStateDelta.QUERY + "=" + URLEncoder.encode(since, StandardCharsets.UTF_8);
+            }
+            if (boardHash != null) {
+                query += (query.isEmpty() ? "?" : "&") + BoardCache.QUERY + "=" + URLEncoder.encode(boardHash, StandardCharsets.UTF_8);
+            }
+            URI uri = query.isEmpty() ? base : URI.create(base + query);
+            last = new Built(since, boardHash, uri);
+            return uri;
+        }
+    }
+
+    private static class Built {
+        final String since;
+        final String boardHash;
+        final URI uri;
+
+        Built(String since, String boardHash, URI uri) {
+            this.since = since;
+            this.boardHash = boardHash;
+            this.uri = uri;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package dtu.compute.RoborallyClient.view;
+
+import dtu.compute.RoborallyClient.fields.EnergyCubeField;
+import dtu.compute.RoborallyClient.fields.FieldAction;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.PlayerTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.SpaceTemplate;
+
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * Finds the spaces that look different in a new game state than in the one shown before:
+ * a robot arrived, left or turned, or the number of energy cubes changed.
+ */
+public class BoardDiff {
+
+    /**
+     * @param previous the game state shown before, or null if nothing was shown yet
+     * @param next the game state to show
+     * @return the indices in {@code next.board.spaces} of the spaces that have to be updated
+     */
+    public static BitSet dirtyCells(GameTemplate previous, GameTemplate next) {
+        int size = next.board.spaces.size();
+        BitSet dirty = new BitSet(size);
+        if (previous == null || previous == next || previous.board.spaces.size() != size) {
+            dirty.set(0, size);
+            return dirty;
+        }
+        for (int i = 0; i < size; i++) {
+            SpaceTemplate before = previous.board.spaces.get(i);
+            SpaceTemplate after = next.board.spaces.get(i);
+            if (before.player != after.player
+                    || energyCubes(before) != energyCubes(after)
+                    || after.player != -1 && robotChanged(previous.players.get(before.player), next.players.get(after.player))) {
+                dirty.set(i);
+            }
+        }
+        return dirty;
+    }
+
+    private static boolean robotChanged(PlayerTemplate before, PlayerTemplate after) {
+        return before.heading != after.heading || !Objects.equals(before.color, after.color);
+    }
+
+    private static int energyCubes(SpaceTemplate space) {
+        for (FieldAction action : space.actions) {
+            if (action instanceof EnergyCubeField) {
+                return ((EnergyCubeField) action).getEnergyCubes();
+            }
+        }
+        return 0;
+    }
+}
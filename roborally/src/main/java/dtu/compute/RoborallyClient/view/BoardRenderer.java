@@ -0,0 +1,172 @@
+package dtu.compute.RoborallyClient.view;
+
+import dtu.compute.RoborallyClient.fields.EnergyCubeField;
+import dtu.compute.RoborallyClient.fields.FieldAction;
+import dtu.compute.RoborallyClient.fileaccess.model.BoardTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.PlayerTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.SpaceTemplate;
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+import static dtu.compute.RoborallyClient.view.SpaceView.SPACE_SIZE;
+
+/**
+ * A board drawn on a single {@link Canvas} instead of one {@link SpaceView} per space. The whole
+ * board is drawn in one pass when it is created; after that only the spaces whose robot or energy
+ * cubes changed are redrawn. Lasers are nodes on an overlay above the canvas, placed by the
+ * coordinates of their space (see {@link #addToCell(int, int, Node)}).
+ */
+public class BoardRenderer extends Pane {
+
+    private final Canvas canvas;
+    private final Pane overlay = new Pane();
+    private final BoardTemplate board;
+    private GameTemplate gameState;
+
+    /**
+     * What was last drawn on each space, by {@link #cellIndex(int, int)}
+     */
+    private final int[] drawnCells;
+    private int lastRedrawnCells;
+
+    public BoardRenderer(@NotNull GameTemplate gameState) {
+        this.gameState = gameState;
+        this.board = gameState.board;
+        canvas = new Canvas(board.width * SPACE_SIZE, board.height * SPACE_SIZE);
+        overlay.setPickOnBounds(false);
+        overlay.setMouseTransparent(true);
+        getChildren().addAll(canvas, overlay);
+        setPrefSize(canvas.getWidth(), canvas.getHeight());
+        setMaxSize(canvas.getWidth(), canvas.getHeight());
+
+        drawnCells = new int[board.width * board.height];
+        Arrays.fill(drawnCells, -1);
+        for (int x = 0; x < board.width; x++) {
+            for (int y = 0; y < board.height; y++) {
+                redrawCell(x, y);
+            }
+        }
+    }
+
+    /**
+     * Redraws the spaces whose robot or energy cubes changed since they were last drawn.
+     */
+    public void updateView(GameTemplate gameState) {
+        this.gameState = gameState;
+        int redrawn = 0;
+        for (int x = 0; x < board.width; x++) {
+            for (int y = 0; y < board.height; y++) {
+                if (drawnCells[cellIndex(x, y)] != cellState(getSpace(x, y))) {
+                    redrawCell(x, y);
+                    redrawn++;
+                }
+            }
+        }
+        lastRedrawnCells = redrawn;
+    }
+
+    /**
+     * Draws the space at (x, y) from scratch: its sprites and the robot standing on it.
+     */
+    public void redrawCell(int x, int y) {
+        SpaceTemplate space = getSpace(x, y);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double centerX = x * SPACE_SIZE + SPACE_SIZE / 2.0;
+        double centerY = y * SPACE_SIZE + SPACE_SIZE / 2.0;
+        gc.clearRect(x * SPACE_SIZE, y * SPACE_SIZE, SPACE_SIZE, SPACE_SIZE);
+        gc.save();
+        gc.beginPath();
+        gc.rect(x * SPACE_SIZE, y * SPACE_SIZE, SPACE_SIZE, SPACE_SIZE);
+        gc.clip();
+        SpriteAtlas atlas = SpaceView.atlas();
+        for (SpaceView.Sprite sprite : SpaceView.getSprites(gameState, space)) {
+            atlas.draw(gc, sprite.path, sprite.rotation, centerX + sprite.translateX, centerY + sprite.translateY,
+                    sprite.width, sprite.height);
+        }
+        if (space.player != -1) {
+            drawPlayer(gc, gameState.players.get(space.player), centerX, centerY);
+        }
+        gc.restore();
+        drawnCells[cellIndex(x, y)] = cellState(space);
+    }
+
+    /**
+     * Draws the same arrow as {@link SpaceView}, pointing in the heading of the player.
+     */
+    private void drawPlayer(GraphicsContext gc, PlayerTemplate player, double centerX, double centerY) {
+        try {
+            gc.setFill(Color.valueOf(player.color));
+        } catch (Exception e) {
+            gc.setFill(Color.MEDIUMPURPLE);
+        }
+        gc.save();
+        gc.translate(centerX, centerY);
+        gc.rotate((90 * player.heading) % 360);
+        gc.fillPolygon(new double[] {-10, 0, 10}, new double[] {-10, 10, -10}, 3);
+        gc.restore();
+    }
+
+    /**
+     * Adds a node on top of the space at (x, y), centered on the space like in a {@link SpaceView}.
+     * Its translation still applies, so nodes made for a SpaceView can be added unchanged.
+     */
+    public void addToCell(int x, int y, Node node) {
+        overlay.getChildren().add(node);
+        Bounds bounds = node.getLayoutBounds();
+        node.relocate(x * SPACE_SIZE + (SPACE_SIZE - bounds.getWidth()) / 2,
+                y * SPACE_SIZE + (SPACE_SIZE - bounds.getHeight()) / 2);
+    }
+
+    /**
+     * @return the x coordinate of the space at the given x position on the canvas, or -1 if outside the board
+     */
+    public int getCellX(double canvasX) {
+        int x = (int) Math.floor(canvasX / SPACE_SIZE);
+        return x >= 0 && x < board.width ? x : -1;
+    }
+
+    /**
+     * @return the y coordinate of the space at the given y position on the canvas, or -1 if outside the board
+     */
+    public int getCellY(double canvasY) {
+        int y = (int) Math.floor(canvasY / SPACE_SIZE);
+        return y >= 0 && y < board.height ? y : -1;
+    }
+
+    /**
+     * @return the number of spaces redrawn by the last {@link #updateView(GameTemplate)}
+     */
+    public int getLastRedrawnCells() {
+        return lastRedrawnCells;
+    }
+
+    private SpaceTemplate getSpace(int x, int y) {
+        return gameState.board.spaces.get(x * board.height + y);
+    }
+
+    private int cellIndex(int x, int y) {
+        return x + y * board.width;
+    }
+
+    /**
+     * @return everything on the space that can change during a game, packed into an int
+     */
+    private int cellState(SpaceTemplate space) {
+        int energyCubes = 0;
+        for (FieldAction action : space.actions) {
+            if (action instanceof EnergyCubeField) {
+                energyCubes = ((EnergyCubeField) action).getEnergyCubes();
+            }
+        }
+        int heading = space.player == -1 ? 0 : gameState.players.get(space.player).heading;
+        return (space.player + 1) << 18 | (heading & 3) << 16 | (energyCubes & 0xFFFF);
+    }
+}
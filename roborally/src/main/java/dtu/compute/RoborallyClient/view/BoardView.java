@@ -27,11 +27,15 @@ import dtu.compute.RoborallyClient.fileaccess.model.BoardTemplate;
 import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
 import dtu.compute.RoborallyClient.fileaccess.model.SpaceTemplate;
 import dtu.compute.RoborallyClient.model.Phase;
+import javafx.scene.Node;
+import javafx.scene.Parent;
 import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Pane;
 import lombok.Getter;
 import org.jetbrains.annotations.NotNull;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -44,13 +48,19 @@ import java.util.Map;
  */
 public class BoardView extends BorderPane {
 
-    private GameTemplate gameState;
+    @Getter
+    private volatile GameTemplate gameState;
     private final RoboRallyClient client;
     private BoardTemplate board;
     private static BoardTemplate staticBoard;
 
     private GridPane mainBoardPane;
     @Getter
+    private final RenderMode renderMode;
+    private VirtualBoardView virtualBoardPane;
+    private BoardRenderer boardRendererPane;
+    private LayeredBoardView layeredBoardPane;
+    @Getter
     private SpaceView[][] spaces;
     private PlayersView playersView;
     private UpgradeShopView upgradeShopView;
@@ -58,7 +68,20 @@ public class BoardView extends BorderPane {
 
     private Label statusLabel;
 
+    /**
+     * The game state the board was last updated to, or null before the first update
+     */
+    private GameTemplate shownGameState;
+    /**
+     * The number of spaces updated by the last {@link #updateView(GameTemplate)}
+     */
+    @Getter
+    private int lastCellsTouched;
+
     private static Map<Integer, SpaceView> spaceViewMap = new HashMap<>();
+    private static VirtualBoardView virtualBoard;
+    private static BoardRenderer boardRenderer;
+    private static LayeredBoardView layeredBoard;
 
     public BoardView(@NotNull AppController appController, @NotNull GameTemplate gameState, @NotNull RoboRallyClient client) {
         staticBoard = gameState.board;
@@ -66,7 +89,12 @@ public class BoardView extends BorderPane {
         this.appController = appController;
         this.gameState = gameState;
         board = gameState.board;
-        mainBoardPane = new GridPane();
+        renderMode = RenderMode.forBoard(board);
+        spaceViewMap.clear();
+        virtualBoard = null;
+        boardRenderer = null;
+        layeredBoard = null;
+        LaserOverlay.clear();
         playersView = new PlayersView(appController, gameState);
         upgradeShopView = new UpgradeShopView(appController, gameState);
         statusLabel = new Label("<no status>");
@@ -77,9 +105,6 @@ public class BoardView extends BorderPane {
 //
 //        this.getChildren().add(statusLabel);
 //        this.getChildren().add(upgradeShopView);
-        // Add mainBoardPane to the center of the BorderPane
-        setCenter(mainBoardPane);
-
         // Add playersView to the right of the BorderPane
         setBottom(playersView);
 
@@ -89,6 +114,29 @@ public class BoardView extends BorderPane {
         // Add statusLabel to the bottom of the BorderPane
         //setBottom(statusLabel);
 
+        if (renderMode == RenderMode.VIRTUAL) {
+            virtualBoardPane = new VirtualBoardView(gameState);
+            virtualBoard = virtualBoardPane;
+            setCenter(virtualBoardPane);
+            return;
+        }
+        if (renderMode == RenderMode.CANVAS) {
+            boardRendererPane = new BoardRenderer(gameState);
+            boardRenderer = boardRendererPane;
+            setCenter(boardRendererPane);
+            return;
+        }
+        if (renderMode == RenderMode.LAYERED) {
+            layeredBoardPane = new LayeredBoardView(gameState);
+            layeredBoard = layeredBoardPane;
+            setCenter(layeredBoardPane);
+            return;
+        }
+
+        mainBoardPane = new GridPane();
+        // Add mainBoardPane to the center of the BorderPane
+        setCenter(mainBoardPane);
+
         spaces = new SpaceView[board.height][board.width];
 
 
@@ -109,16 +157,85 @@ public class BoardView extends BorderPane {
         statusLabel.setText(getStatusMessage());
         playersView.updateView(gameState);
         upgradeShopView.updateView(gameState);
-        for (int x = 0; x < board.width; x++) {
-            for (int y = 0; y < board.height; y++) {
-                spaces[y][x].updateView(gameState, gameState.board.spaces.get(x * board.height + y));
-            }
+        BitSet dirtyCells = BoardDiff.dirtyCells(shownGameState, gameState);
+        shownGameState = gameState;
+        if (boardRendererPane != null) {
+            boardRendererPane.updateView(gameState);
+            lastCellsTouched = boardRendererPane.getLastRedrawnCells();
+            return;
+        }
+        lastCellsTouched = dirtyCells.cardinality();
+        if (virtualBoardPane != null) {
+            virtualBoardPane.updateView(gameState, dirtyCells);
+            return;
+        }
+        if (layeredBoardPane != null) {
+            layeredBoardPane.updateView(gameState, dirtyCells);
+            return;
+        }
+        for (int i = dirtyCells.nextSetBit(0); i >= 0; i = dirtyCells.nextSetBit(i + 1)) {
+            spaces[i % board.height][i / board.height].updateView(gameState, gameState.board.spaces.get(i));
         }
     }
+    /**
+     * @return the view of the space, or null if the board is virtualized and the space is out of sight,
+     * or if the board is not made of space views
+     */
     public static SpaceView getSpaceView(SpaceTemplate space) {
+        if (virtualBoard != null) {
+            return virtualBoard.getSpaceView(space.x, space.y);
+        }
         return spaceViewMap.get(space.x + space.y*staticBoard.width);
     }
 
+    /**
+     * Adds a node on top of a space, whichever way the board is drawn. The node is centered on the space.
+     * @return false if the space has no view to add the node to
+     */
+    public static boolean addToSpace(SpaceTemplate space, Node node) {
+        if (boardRenderer != null) {
+            boardRenderer.addToCell(space.x, space.y, node);
+            return true;
+        }
+        if (layeredBoard != null) {
+            layeredBoard.addToCell(space.x, space.y, node);
+            return true;
+        }
+        SpaceView spaceView = getSpaceView(space);
+        if (spaceView == null) {
+            return false;
+        }
+        spaceView.getChildren().add(node);
+        return true;
+    }
+
+    /**
+     * Removes a node added by {@link #addToSpace(SpaceTemplate, Node)}, also if the board
+     * it was added to has been replaced since.
+     */
+    public static void removeFromSpace(Node node) {
+        if (node.getParent() instanceof Pane) {
+            ((Pane) node.getParent()).getChildren().remove(node);
+        }
+    }
+
+    /**
+     * @return the number of nodes in the scene graph of the board, for comparing render modes
+     */
+    public int getBoardNodeCount() {
+        return countNodes(getCenter());
+    }
+
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+
     public String getStatusMessage() {
         return "Phase: " + Phase.values()[gameState.playPhase].name() +
                 ", Current Player = " + gameState.players.get(gameState.currentPlayer).name +
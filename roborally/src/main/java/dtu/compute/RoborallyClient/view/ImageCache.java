@@ -0,0 +1,75 @@
+package dtu.compute.RoborallyClient.view;
+
+import javafx.scene.image.Image;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decoded images shared by all views, by resource path and the size they are decoded at.
+ * An image is decoded once at the size it is shown at, instead of once per ImageView at full size.
+ * Images can be decoded on any thread, so {@link SpaceView#preloadImages()} can fill the cache
+ * in the background while waiting in the lobby.
+ */
+public class ImageCache {
+
+    private static final Map<String, Image> images = new ConcurrentHashMap<>();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong decodeNanos = new AtomicLong();
+
+    /**
+     * @param path resource path of the image, e.g. "images/empty.png"
+     * @return the image at its own size
+     */
+    public static Image get(String path) {
+        return get(path, 0, 0);
+    }
+
+    /**
+     * @param path resource path of the image, e.g. "images/empty.png"
+     * @param width width to decode the image at, or 0 to follow the height
+     * @param height height to decode the image at, or 0 to follow the width
+     * @return the image at the given size; if one of width and height is 0, the aspect ratio is kept
+     */
+    public static Image get(String path, double width, double height) {
+        String key = path + "@" + width + "x" + height;
+        Image image = images.get(key);
+        if (image != null) {
+            hits.incrementAndGet();
+            return image;
+        }
+        return images.computeIfAbsent(key, k -> {
+            misses.incrementAndGet();
+            long start = System.nanoTime();
+            Image decoded = new Image(path, width, height, width == 0 || height == 0, true);
+            decodeNanos.addAndGet(System.nanoTime() - start);
+            return decoded;
+        });
+    }
+
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the time spent decoding images, in milliseconds
+     */
+    public static long getDecodeMillis() {
+        return decodeNanos.get() / 1_000_000;
+    }
+
+    public static int size() {
+        return images.size();
+    }
+
+    public static void clear() {
+        images.clear();
+    }
+}
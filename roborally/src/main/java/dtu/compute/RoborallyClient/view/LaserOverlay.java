@@ -0,0 +1,157 @@
+package dtu.compute.RoborallyClient.view;
+
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.SpaceTemplate;
+import dtu.compute.RoborallyClient.model.Heading;
+import dtu.compute.RoborallyClient.online.GameStateUpdate;
+import javafx.scene.image.ImageView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The laser beams on the board. The beam segments are ImageViews from a pool that only grows to
+ * the most segments shown at once, and the beams are only redrawn when the set of beams in the
+ * game state changes, so showing the same lasers poll after poll allocates nothing. Each segment
+ * remembers the space it belongs to, so on a {@link VirtualBoardView} the segments of a space
+ * scrolled out of sight are put back when a {@link SpaceView} is bound to it again.
+ * All methods must be called on the JavaFX Application Thread.
+ */
+public class LaserOverlay {
+
+    /**
+     * A beam segment and the space it is drawn on
+     */
+    private static class Segment {
+        final ImageView view = new ImageView();
+        int x;
+        int y;
+    }
+
+    private static final List<Segment> pool = new ArrayList<>();
+    private static int used;
+    private static List<GameStateUpdate.LaserBeam> shownBeams = List.of();
+    /**
+     * True while the overlay itself moves segments between space views, see {@link #detach(SpaceView)}
+     */
+    private static boolean moving;
+
+    /**
+     * Shows the given laser beams instead of the ones shown before, unless they are the same.
+     * @param gameState the game state the beams belong to
+     * @param beams the beams, each as the line of sight from the laser to what it hits
+     */
+    public static void show(GameTemplate gameState, List<GameStateUpdate.LaserBeam> beams) {
+        if (sameBeams(shownBeams, beams)) {
+            return;
+        }
+        clear();
+        for (GameStateUpdate.LaserBeam beam : beams) {
+            List<SpaceTemplate> spaces = new ArrayList<>(beam.x.length);
+            for (int i = 0; i < beam.x.length; i++) {
+                spaces.add(gameState.board.spaces.get(beam.x[i] * gameState.board.height + beam.y[i]));
+            }
+            SpaceView.drawLaser(spaces, Heading.values()[beam.heading]);
+        }
+        shownBeams = beams;
+    }
+
+    /**
+     * Removes all beams from the board and returns their segments to the pool.
+     */
+    public static void clear() {
+        for (int i = 0; i < used; i++) {
+            ImageView segment = pool.get(i).view;
+            segment.setVisible(false);
+            BoardView.removeFromSpace(segment);
+        }
+        used = 0;
+        shownBeams = List.of();
+    }
+
+    /**
+     * Takes the beam segments off a space view which is about to be bound to another space.
+     * They are kept for their space, see {@link #attach(SpaceView)}.
+     */
+    static void detach(SpaceView spaceView) {
+        moving = true;
+        try {
+            for (int i = 0; i < used; i++) {
+                ImageView segment = pool.get(i).view;
+                if (segment.getParent() == spaceView) {
+                    spaceView.getChildren().remove(segment);
+                }
+            }
+        } finally {
+            moving = false;
+        }
+    }
+
+    /**
+     * Adds the beam segments of the space a space view shows to it, if they are not on it already.
+     */
+    static void attach(SpaceView spaceView) {
+        moving = true;
+        try {
+            for (int i = 0; i < used; i++) {
+                Segment segment = pool.get(i);
+                if (segment.x == spaceView.space.x && segment.y == spaceView.space.y
+                        && segment.view.getParent() != spaceView) {
+                    BoardView.removeFromSpace(segment.view);
+                    spaceView.getChildren().add(segment.view);
+                }
+            }
+        } finally {
+            moving = false;
+        }
+    }
+
+    /**
+     * @param space the space the segment is drawn on
+     * @return a beam segment from the pool, not on the board yet and without any translation
+     */
+    static ImageView acquire(SpaceTemplate space) {
+        if (used == pool.size()) {
+            Segment segment = new Segment();
+            segment.view.setCache(true);
+            // a segment taken off the board by anything but the overlay, e.g. a space view
+            // cleared by its owner, has to be drawn again by the next show
+            segment.view.parentProperty().addListener((observable, oldParent, parent) -> {
+                if (parent == null && !moving) {
+                    shownBeams = List.of();
+                }
+            });
+            pool.add(segment);
+        }
+        Segment segment = pool.get(used++);
+        segment.x = space.x;
+        segment.y = space.y;
+        ImageView view = segment.view;
+        view.setTranslateX(0);
+        view.setTranslateY(0);
+        view.setVisible(true);
+        return view;
+    }
+
+    /**
+     * @return the number of beam segments in the pool, shown or not
+     */
+    public static int getPoolSize() {
+        return pool.size();
+    }
+
+    private static boolean sameBeams(List<GameStateUpdate.LaserBeam> a, List<GameStateUpdate.LaserBeam> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i).heading != b.get(i).heading
+                    || !Arrays.equals(a.get(i).x, b.get(i).x)
+                    || !Arrays.equals(a.get(i).y, b.get(i).y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,162 @@
+package dtu.compute.RoborallyClient.view;
+
+import dtu.compute.RoborallyClient.fields.EnergyCubeField;
+import dtu.compute.RoborallyClient.fields.FieldAction;
+import dtu.compute.RoborallyClient.fileaccess.model.BoardTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.SpaceTemplate;
+import javafx.geometry.Bounds;
+import javafx.scene.CacheHint;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static dtu.compute.RoborallyClient.view.SpaceView.SPACE_SIZE;
+
+/**
+ * A board in two layers. Everything that stays the same for the whole game (spaces, walls, belts,
+ * gears, checkpoints, push panels and laser emitters) is rendered once into a {@link WritableImage}
+ * shown by a single ImageView. Energy cubes and laser beams are nodes on an overlay above it, with
+ * the robots on a {@link RobotLayer} on top, and updates only touch the overlays.
+ * Must be created on the JavaFX Application Thread, since the static layer is a snapshot.
+ */
+public class LayeredBoardView extends Pane {
+
+    private final ImageView staticLayer;
+    private final Pane overlay = new Pane();
+    private final RobotLayer robotLayer = new RobotLayer();
+    private final BoardTemplate board;
+
+    /**
+     * The space each robot is shown on, by the index of the player
+     */
+    private final Map<Integer, Integer> robotCells = new HashMap<>();
+    /**
+     * The energy cube of each energy field, by {@link #cellIndex(int, int)}
+     */
+    private final Map<Integer, ImageView> energyCubes = new HashMap<>();
+
+    public LayeredBoardView(@NotNull GameTemplate gameState) {
+        this.board = gameState.board;
+
+        staticLayer = new ImageView(renderStaticLayer(gameState));
+        staticLayer.setCache(true);
+        staticLayer.setCacheHint(CacheHint.SPEED);
+        overlay.setPickOnBounds(false);
+        overlay.setMouseTransparent(true);
+        getChildren().addAll(staticLayer, overlay, robotLayer);
+        setPrefSize(board.width * SPACE_SIZE, board.height * SPACE_SIZE);
+        setMaxSize(board.width * SPACE_SIZE, board.height * SPACE_SIZE);
+
+        SpriteAtlas atlas = SpaceView.atlas();
+        for (int x = 0; x < board.width; x++) {
+            for (int y = 0; y < board.height; y++) {
+                for (FieldAction action : getSpace(gameState, x, y).actions) {
+                    if (action instanceof EnergyCubeField) {
+                        ImageView energyCube = new ImageView();
+                        atlas.apply(energyCube, SpaceView.ENERGY_CUBE, 0);
+                        addToCell(x, y, energyCube);
+                        energyCubes.put(cellIndex(x, y), energyCube);
+                    }
+                }
+            }
+        }
+        BitSet allCells = new BitSet();
+        allCells.set(0, board.spaces.size());
+        updateView(gameState, allCells);
+    }
+
+    /**
+     * Draws the static sprites of all spaces on a canvas and takes a snapshot of it.
+     */
+    private WritableImage renderStaticLayer(GameTemplate gameState) {
+        Canvas canvas = new Canvas(board.width * SPACE_SIZE, board.height * SPACE_SIZE);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        SpriteAtlas atlas = SpaceView.atlas();
+        for (int x = 0; x < board.width; x++) {
+            for (int y = 0; y < board.height; y++) {
+                double centerX = x * SPACE_SIZE + SPACE_SIZE / 2.0;
+                double centerY = y * SPACE_SIZE + SPACE_SIZE / 2.0;
+                gc.save();
+                gc.beginPath();
+                gc.rect(x * SPACE_SIZE, y * SPACE_SIZE, SPACE_SIZE, SPACE_SIZE);
+                gc.clip();
+                for (SpaceView.Sprite sprite : SpaceView.getStaticSprites(gameState, getSpace(gameState, x, y))) {
+                    atlas.draw(gc, sprite.path, sprite.rotation, centerX + sprite.translateX, centerY + sprite.translateY,
+                            sprite.width, sprite.height);
+                }
+                gc.restore();
+            }
+        }
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return canvas.snapshot(parameters, null);
+    }
+
+    /**
+     * Moves the robots and shows or hides the energy cubes of the dirty spaces. The static layer is left alone.
+     * @param dirtyCells the spaces to update, by their index in the list of spaces of the board
+     */
+    public void updateView(GameTemplate gameState, BitSet dirtyCells) {
+        Set<Integer> placedRobots = new HashSet<>();
+        for (int i = dirtyCells.nextSetBit(0); i >= 0; i = dirtyCells.nextSetBit(i + 1)) {
+            SpaceTemplate space = gameState.board.spaces.get(i);
+            int x = i / board.height;
+            int y = i % board.height;
+            ImageView energyCube = energyCubes.get(cellIndex(x, y));
+            if (energyCube != null) {
+                for (FieldAction action : space.actions) {
+                    if (action instanceof EnergyCubeField) {
+                        energyCube.setVisible(((EnergyCubeField) action).getEnergyCubes() != 0);
+                    }
+                }
+            }
+            if (space.player != -1) {
+                robotLayer.moveRobot(space.player, gameState.players.get(space.player), x, y);
+                robotCells.put(space.player, i);
+                placedRobots.add(space.player);
+            }
+        }
+        // robots which left a dirty space without arriving on another one are off the board
+        for (Map.Entry<Integer, Integer> entry : robotCells.entrySet()) {
+            if (dirtyCells.get(entry.getValue()) && !placedRobots.contains(entry.getKey())) {
+                robotLayer.hideRobot(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Adds a node on top of the space at (x, y), centered on the space like in a {@link SpaceView}.
+     * Its translation still applies, so nodes made for a SpaceView can be added unchanged.
+     */
+    public void addToCell(int x, int y, Node node) {
+        overlay.getChildren().add(node);
+        moveToCell(x, y, node);
+    }
+
+    private void moveToCell(int x, int y, Node node) {
+        Bounds bounds = node.getLayoutBounds();
+        node.relocate(x * SPACE_SIZE + (SPACE_SIZE - bounds.getWidth()) / 2,
+                y * SPACE_SIZE + (SPACE_SIZE - bounds.getHeight()) / 2);
+    }
+
+    private SpaceTemplate getSpace(GameTemplate gameState, int x, int y) {
+        return gameState.board.spaces.get(x * board.height + y);
+    }
+
+    private int cellIndex(int x, int y) {
+        return x + y * board.width;
+    }
+}
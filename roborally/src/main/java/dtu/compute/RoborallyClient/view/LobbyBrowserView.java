@@ -0,0 +1,167 @@
+package dtu.compute.RoborallyClient.view;
+
+import dtu.compute.RoborallyClient.controller.AppController;
+import dtu.compute.RoborallyClient.controller.LobbyDirectory;
+import dtu.compute.RoborallyClient.model.LobbyEntry;
+import javafx.collections.ListChangeListener;
+import javafx.collections.WeakListChangeListener;
+import javafx.collections.transformation.FilteredList;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.effect.DropShadow;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+
+import java.util.Locale;
+
+/**
+ * The lobby browser. The lobbies are shown in a ListView, which only has cells for the rows on
+ * screen and reuses them while scrolling, so it stays smooth however many lobbies there are.
+ * Scrolling near the end of the list asks the {@link LobbyDirectory} for the next page. The
+ * lobbies fetched so far can be filtered by lobby id or player name, and by whether they have
+ * free seats; lobbies whose players are not loaded yet only match the text filter by their id.
+ * The cells tell the directory which lobbies are on screen, so it can load them again once they expire.
+ */
+public class LobbyBrowserView extends BorderPane {
+
+    private static final double ROW_HEIGHT = 40;
+    /** Fewer lobbies shown than this fetches the next page, e.g. when the filter hides most of them. */
+    private static final int MIN_SHOWN = 20;
+
+    private static final String ALL = "All lobbies";
+    private static final String FREE = "With free seats";
+    private static final String FULL = "Full";
+
+    private final LobbyDirectory directory;
+    private final FilteredList<LobbyEntry> shown;
+    private final TextField filterField = new TextField();
+    private final ChoiceBox<String> fillChoice = new ChoiceBox<>();
+    // the directory outlives the view, so it only holds on to the view weakly
+    private final ListChangeListener<LobbyEntry> lobbiesListener = change -> loadWhileFewShown();
+
+    /**
+     * @param back called when the player goes back to the menu
+     */
+    public LobbyBrowserView(AppController appController, LobbyDirectory directory, Runnable back) {
+        this.directory = directory;
+        shown = new FilteredList<>(directory.getLobbies());
+        directory.getLobbies().addListener(new WeakListChangeListener<>(lobbiesListener));
+
+        filterField.setPromptText("Lobby id or player name");
+        filterField.textProperty().addListener((observable, oldValue, newValue) -> updateFilter());
+        fillChoice.getItems().addAll(ALL, FREE, FULL);
+        fillChoice.setValue(ALL);
+        fillChoice.valueProperty().addListener((observable, oldValue, newValue) -> updateFilter());
+        HBox filterBar = new HBox(10, filterField, fillChoice);
+        HBox.setHgrow(filterField, Priority.ALWAYS);
+        filterBar.setPadding(new Insets(10));
+        setTop(filterBar);
+
+        ListView<LobbyEntry> listView = new ListView<>(shown);
+        listView.setFixedCellSize(ROW_HEIGHT);
+        listView.setCellFactory(view -> new LobbyCell(appController));
+        listView.setStyle("-fx-background-color: transparent;");
+        setCenter(listView);
+
+        Button leaveBtn = new Button("Back to menu");
+        leaveBtn.setOnAction(e -> back.run());
+        HBox buttonBar = new HBox(leaveBtn);
+        buttonBar.setAlignment(Pos.CENTER_RIGHT);
+        buttonBar.setPadding(new Insets(10));
+        setBottom(buttonBar);
+    }
+
+    private void updateFilter() {
+        String text = filterField.getText() == null ? "" : filterField.getText().trim().toLowerCase(Locale.ROOT);
+        String fill = fillChoice.getValue();
+        shown.setPredicate(lobby -> lobby.matches(text)
+                && (ALL.equals(fill)
+                    || (FREE.equals(fill) && lobby.isLoaded() && !lobby.isFull())
+                    || (FULL.equals(fill) && lobby.isFull())));
+        loadWhileFewShown();
+    }
+
+    private void loadWhileFewShown() {
+        if (shown.size() < MIN_SHOWN && !directory.isComplete()) {
+            directory.loadMore();
+        }
+    }
+
+    /**
+     * A row of the lobby browser. The nodes are made once per cell and only their content
+     * changes when the cell is reused for another lobby.
+     */
+    private class LobbyCell extends ListCell<LobbyEntry> {
+
+        private final Text lobbyText = new Text();
+        private final Text playerText = new Text();
+        private final Text fillText = new Text();
+        private final Button joinBtn = new Button("join Lobby");
+        private final HBox row;
+        private LobbyEntry current;
+
+        LobbyCell(AppController appController) {
+            DropShadow dropShadow = new DropShadow();
+            dropShadow.setOffsetX(2.0);
+            dropShadow.setOffsetY(2.0);
+            dropShadow.setColor(Color.BLACK); // Shadow color
+            for (Text text : new Text[] {lobbyText, playerText, fillText}) {
+                text.setFont(Font.font("Arial", FontWeight.EXTRA_BOLD, 18));
+                text.setEffect(dropShadow);
+                text.setFill(Color.WHITE);
+            }
+            joinBtn.setOnAction(e -> {
+                if (getItem() != null) {
+                    appController.joinLobby(getItem().getLobbyId());
+                }
+            });
+            Region space = new Region();
+            HBox.setHgrow(space, Priority.ALWAYS);
+            row = new HBox(20, lobbyText, playerText, space, fillText, joinBtn);
+            row.setAlignment(Pos.CENTER_LEFT);
+            setStyle("-fx-background-color: transparent;");
+        }
+
+        @Override
+        protected void updateItem(LobbyEntry lobby, boolean empty) {
+            super.updateItem(lobby, empty);
+            if (current != null) {
+                directory.hidden(current);
+            }
+            current = empty ? null : lobby;
+            if (current != null) {
+                directory.shown(current);
+            }
+            if (empty || lobby == null) {
+                setGraphic(null);
+                return;
+            }
+            lobbyText.setText("LobbyId: " + lobby.getLobbyId());
+            if (lobby.isLoaded()) {
+                playerText.setText("Players: " + String.join(", ", lobby.getPlayers()));
+                fillText.setText(lobby.getPlayers().size() + "/" + LobbyEntry.CAPACITY);
+                joinBtn.setDisable(lobby.isFull());
+            } else {
+                playerText.setText("Players: ...");
+                fillText.setText("");
+                joinBtn.setDisable(false);
+            }
+            setGraphic(row);
+            // the end of what is fetched so far is in sight, so fetch the next page
+            if (getIndex() >= getListView().getItems().size() - 10 && !directory.isComplete()) {
+                directory.loadMore();
+            }
+        }
+    }
+}
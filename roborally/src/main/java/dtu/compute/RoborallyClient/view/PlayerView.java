@@ -116,15 +116,20 @@ public class PlayerView extends Tab {
 
         finishButton = new Button("Finish Programming");
         finishButton.setOnAction( e -> {
-            if (appController.sendReadySignal()) {
-                for (CardFieldView cardFieldView : programCardViews) {
-                    // Deactivate events for cards, so they aren't moved after having finished programming
-                    cardFieldView.setDisable(true);
-                }
-                for (CardFieldView cardFieldView : cardViews) {
-                    cardFieldView.setDisable(true);
+            // disabled while the server has not answered, so it cannot be sent twice
+            finishButton.setDisable(true);
+            appController.sendReadySignal().thenAccept(ready -> {
+                finishButton.setDisable(false);
+                if (ready) {
+                    for (CardFieldView cardFieldView : programCardViews) {
+                        // Deactivate events for cards, so they aren't moved after having finished programming
+                        cardFieldView.setDisable(true);
+                    }
+                    for (CardFieldView cardFieldView : cardViews) {
+                        cardFieldView.setDisable(true);
+                    }
                 }
-            }
+            });
         });
 
         skipUpgradeButton = new Button("Don't buy an upgrade card");
@@ -0,0 +1,61 @@
+package dtu.compute.RoborallyClient.view;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versions of the board, so work that needs a game state on screen can wait for it without
+ * blocking a thread. Every game state handed to the view gets the next version from
+ * {@link #reserve()}; once the view shows it (or a newer one, when the older update was
+ * coalesced away) it calls {@link #rendered(long)}, which completes everything waiting for
+ * that version or an older one.
+ */
+public class RenderBarrier {
+
+    private long reservedVersion;
+    private long renderedVersion;
+    private final TreeMap<Long, CompletableFuture<Void>> waiting = new TreeMap<>();
+
+    /**
+     * @return the version of the next game state handed to the view
+     */
+    public synchronized long reserve() {
+        return ++reservedVersion;
+    }
+
+    /**
+     * @return the version of the last game state handed to the view
+     */
+    public synchronized long getReservedVersion() {
+        return reservedVersion;
+    }
+
+    public synchronized long getRenderedVersion() {
+        return renderedVersion;
+    }
+
+    /**
+     * @return a future completed once the given version or a newer one has been rendered
+     */
+    public synchronized CompletableFuture<Void> whenRendered(long version) {
+        if (version <= renderedVersion) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return waiting.computeIfAbsent(version, v -> new CompletableFuture<>());
+    }
+
+    /**
+     * Called by the view once it shows the given version.
+     */
+    public void rendered(long version) {
+        Map<Long, CompletableFuture<Void>> done;
+        synchronized (this) {
+            if (version <= renderedVersion) return;
+            renderedVersion = version;
+            done = new TreeMap<>(waiting.headMap(version, true));
+            waiting.headMap(version, true).clear();
+        }
+        done.values().forEach(future -> future.complete(null));
+    }
+}
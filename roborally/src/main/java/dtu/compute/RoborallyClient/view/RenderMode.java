@@ -0,0 +1,44 @@
+package dtu.compute.RoborallyClient.view;
+
+import dtu.compute.RoborallyClient.fileaccess.model.BoardTemplate;
+
+/**
+ * How the board of a {@link BoardView} is drawn. The mode can be chosen with
+ * -Droborally.renderMode=nodes|virtual|canvas|layered; without it, boards with more than
+ * {@link #VIRTUAL_THRESHOLD} spaces are virtualized and smaller boards are layered. An unknown
+ * mode is ignored.
+ */
+public enum RenderMode {
+    /**
+     * One {@link SpaceView} per space in a GridPane.
+     */
+    NODES,
+    /**
+     * Only the spaces in the viewport have a {@link SpaceView}, see {@link VirtualBoardView}.
+     */
+    VIRTUAL,
+    /**
+     * The whole board is drawn on one canvas, see {@link BoardRenderer}.
+     */
+    CANVAS,
+    /**
+     * The static board is one image with the robots, energy cubes and lasers on top,
+     * see {@link LayeredBoardView}.
+     */
+    LAYERED;
+
+    public static final int VIRTUAL_THRESHOLD = 400;
+
+    public static RenderMode forBoard(BoardTemplate board) {
+        String mode = System.getProperty("roborally.renderMode");
+        RenderMode defaultMode = board.width * board.height > VIRTUAL_THRESHOLD ? VIRTUAL : LAYERED;
+        if (mode != null) {
+            try {
+                return valueOf(mode.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.out.println("Unknown render mode " + mode + ", using " + defaultMode);
+            }
+        }
+        return defaultMode;
+    }
+}
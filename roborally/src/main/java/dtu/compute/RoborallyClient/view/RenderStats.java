@@ -0,0 +1,68 @@
+package dtu.compute.RoborallyClient.view;
+
+import javafx.scene.Scene;
+
+/**
+ * Measures the layout part of each pulse of a scene and the time between pulses, and logs the
+ * averages every {@link #REPORT_INTERVAL} pulses together with the render mode, the number of
+ * nodes of the board and the number of spaces touched by its last update. Running the same game
+ * with -Droborally.renderMode=nodes and =canvas gives a comparison of the two.
+ */
+public class RenderStats {
+
+    private static final int REPORT_INTERVAL = 600;
+
+    private static RenderStats installed;
+
+    private BoardView boardView;
+    private long layoutStart;
+    private long lastPulse;
+    private long layoutNanos;
+    private long maxLayoutNanos;
+    private long pulseIntervalNanos;
+    private int pulses;
+
+    private RenderStats(Scene scene) {
+        scene.addPreLayoutPulseListener(() -> layoutStart = System.nanoTime());
+        scene.addPostLayoutPulseListener(this::pulseDone);
+    }
+
+    /**
+     * Starts measuring the pulses of the scene for the given board. Only the first call for a scene adds listeners;
+     * later calls switch the board the measurements are reported for.
+     */
+    public static void attach(Scene scene, BoardView boardView) {
+        if (installed == null) {
+            installed = new RenderStats(scene);
+        }
+        installed.boardView = boardView;
+        installed.reset();
+    }
+
+    private void pulseDone() {
+        long now = System.nanoTime();
+        long layout = now - layoutStart;
+        layoutNanos += layout;
+        maxLayoutNanos = Math.max(maxLayoutNanos, layout);
+        if (lastPulse != 0) {
+            pulseIntervalNanos += now - lastPulse;
+        }
+        lastPulse = now;
+        if (++pulses < REPORT_INTERVAL || boardView == null) {
+            return;
+        }
+        System.out.printf("Render mode %s: %d board nodes, %d cells touched by last update, "
+                        + "layout %.3f ms avg / %.3f ms max, %.1f ms between pulses%n",
+                boardView.getRenderMode(), boardView.getBoardNodeCount(), boardView.getLastCellsTouched(),
+                layoutNanos / 1e6 / pulses, maxLayoutNanos / 1e6, pulseIntervalNanos / 1e6 / (pulses - 1));
+        reset();
+    }
+
+    private void reset() {
+        layoutNanos = 0;
+        maxLayoutNanos = 0;
+        pulseIntervalNanos = 0;
+        lastPulse = 0;
+        pulses = 0;
+    }
+}
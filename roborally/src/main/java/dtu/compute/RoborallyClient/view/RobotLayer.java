@@ -0,0 +1,113 @@
+package dtu.compute.RoborallyClient.view;
+
+import dtu.compute.RoborallyClient.fileaccess.model.PlayerTemplate;
+import javafx.animation.RotateTransition;
+import javafx.animation.TranslateTransition;
+import javafx.scene.CacheHint;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Polygon;
+import javafx.util.Duration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static dtu.compute.RoborallyClient.view.SpaceView.SPACE_SIZE;
+
+/**
+ * The robots of a board, one node per player for the whole game. A robot slides and turns from
+ * the space it was on to its new space, and a newer state interrupts the animation and continues
+ * from wherever the robot is. Each robot is cached as a bitmap and animated by its transforms
+ * only, so a pulse with all robots moving costs no layout and at most two transitions per robot.
+ */
+public class RobotLayer extends Pane {
+
+    private static final Duration MOVE_DURATION = Duration.millis(300);
+
+    private final Map<Integer, Robot> robots = new HashMap<>();
+
+    public RobotLayer() {
+        setPickOnBounds(false);
+        setMouseTransparent(true);
+    }
+
+    /**
+     * Moves the robot of a player to the space at (x, y), turned to the heading of the player.
+     * The robot is animated if it was already shown, and appears right there otherwise.
+     * @param index the index of the player
+     */
+    public void moveRobot(int index, PlayerTemplate player, int x, int y) {
+        Robot robot = robots.computeIfAbsent(index, i -> new Robot(player));
+        if (robot.x == x && robot.y == y && robot.heading == player.heading && robot.node.isVisible()) {
+            return;
+        }
+        boolean animate = robot.node.isVisible();
+        robot.x = x;
+        robot.y = y;
+        robot.heading = player.heading;
+        robot.move.stop();
+        robot.turn.stop();
+
+        double targetX = x * SPACE_SIZE;
+        double targetY = y * SPACE_SIZE;
+        double angle = robot.node.getRotate();
+        // turn the short way round, from wherever an interrupted turn left the robot
+        double targetAngle = angle + Math.floorMod((90 * player.heading) - (int) Math.round(angle) + 180, 360) - 180;
+        if (!animate) {
+            robot.node.setTranslateX(targetX);
+            robot.node.setTranslateY(targetY);
+            robot.node.setRotate(targetAngle);
+            robot.node.setVisible(true);
+            return;
+        }
+        robot.move.setToX(targetX);
+        robot.move.setToY(targetY);
+        robot.move.playFromStart();
+        if (targetAngle != angle) {
+            robot.turn.setToAngle(targetAngle);
+            robot.turn.playFromStart();
+        }
+    }
+
+    /**
+     * Hides the robot of a player, e.g. when it is not on any space of the board.
+     * @param index the index of the player
+     */
+    public void hideRobot(int index) {
+        Robot robot = robots.get(index);
+        if (robot != null) {
+            robot.move.stop();
+            robot.turn.stop();
+            robot.node.setVisible(false);
+        }
+    }
+
+    private class Robot {
+        final Polygon node;
+        final TranslateTransition move;
+        final RotateTransition turn;
+        int x = -1;
+        int y = -1;
+        int heading = -1;
+
+        Robot(PlayerTemplate player) {
+            // The same arrow as drawn by SpaceView
+            node = new Polygon(0.0, 0.0,
+                    10.0, 20.0,
+                    20.0, 0.0);
+            try {
+                node.setFill(Color.valueOf(player.color));
+            } catch (Exception e) {
+                node.setFill(Color.MEDIUMPURPLE);
+            }
+            node.setCache(true);
+            node.setCacheHint(CacheHint.SPEED);
+            node.setVisible(false);
+            // centered in the space at translate (0, 0); the translation then picks the space
+            node.relocate((SPACE_SIZE - 20.0) / 2, (SPACE_SIZE - 20.0) / 2);
+            move = new TranslateTransition(MOVE_DURATION, node);
+            turn = new RotateTransition(MOVE_DURATION, node);
+            getChildren().add(node);
+        }
+    }
+}
@@ -35,7 +35,9 @@ import org.jetbrains.annotations.NotNull;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * ...
@@ -50,10 +52,16 @@ public class SpaceView extends StackPane {
     public SpaceTemplate space;
     public GameTemplate gameState;
 
-    public static List<ImageView> lasers = new ArrayList<>();
-
     public ImageView eneryCubeImageView;
 
+    private Polygon arrow;
+    private String arrowColor;
+    /**
+     * The image views of the sprites of the space, from the bottom up; the ones past the sprites
+     * of the current space are hidden
+     */
+    private final List<ImageView> spriteViews = new ArrayList<>();
+
     public SpaceView(@NotNull GameTemplate gameState, @NotNull SpaceTemplate space) {
         this.space = space;
         this.gameState = gameState;
@@ -66,9 +74,73 @@ public class SpaceView extends StackPane {
         this.setMaxHeight(SPACE_SIZE);
 
         drawBoard();
+        LaserOverlay.attach(this);
+    }
+    private static final String WALL = "images/wall.png";
+    private static final String LASER_BEAM = "images/laser.png";
+    static final String ENERGY_CUBE = "images/energyCube.png";
+    private static final String[] TILES = {"antenna.png", "blueConveyor.png", "blueTurnLeft.png", "blueTurnRight.png",
+            "checkpoint1.png", "checkpoint2.png", "checkpoint3.png", "checkpoint4.png", "checkpoint5.png", "checkpoint6.png",
+            "empty.png", "energyField.png", "gearLeft.png", "gearRight.png", "greenConveyor.png", "greenTurnLeft.png",
+            "greenTurnRight.png", "pit.png", "reboot.png", "startField.png", "tBlue.png", "tBlue1.png", "tBlue2.png",
+            "tGreen1.png", "tGreen2.png", "tGreen4.png"};
+
+    private static volatile SpriteAtlas atlas;
+
+    /**
+     * @return the atlas of all board sprites, built on first use
+     */
+    public static SpriteAtlas atlas() {
+        SpriteAtlas result = atlas;
+        if (result == null) {
+            synchronized (SpaceView.class) {
+                result = atlas;
+                if (result == null) {
+                    Map<String, double[]> sprites = new LinkedHashMap<>();
+                    for (String tile : TILES) {
+                        sprites.put(tile(tile), new double[] {SPACE_SIZE, SPACE_SIZE});
+                    }
+                    sprites.put(WALL, new double[] {SPACE_SIZE / 6.0, SPACE_SIZE});
+                    sprites.put(LASER_BEAM, new double[] {SPACE_SIZE, SPACE_SIZE / 8.0});
+                    sprites.put(ENERGY_CUBE, new double[] {SPACE_SIZE / 1.2, SPACE_SIZE / 1.2});
+                    sprites.put("images/doublelaser.png", new double[] {0, SPACE_SIZE / 2.0});
+                    sprites.put("images/triplelaser.png", new double[] {0, SPACE_SIZE / 1.2});
+                    sprites.put("images/laserStart.png", new double[] {0, SPACE_SIZE / 4.0});
+                    sprites.put("images/pushEven.png", new double[] {0, SPACE_SIZE});
+                    sprites.put("images/pushOdd.png", new double[] {0, SPACE_SIZE});
+                    result = new SpriteAtlas(sprites);
+                    atlas = result;
+                }
+            }
+        }
+        return result;
     }
+
     /**
-     * Draws the lasers on the board for a given time
+     * Decodes the images of the board and packs them into the {@link #atlas()}, so building the
+     * board does not have to. Can be called on any thread.
+     */
+    public static void preloadImages() {
+        atlas();
+    }
+
+    /**
+     * @param name file name of a tile in the images folder
+     * @return the resource path of the tile
+     */
+    private static String tile(String name) {
+        return "images/" + name;
+    }
+
+    /**
+     * Shows a sprite of the atlas in the view, rotated and stretched to the current fit size of the view.
+     */
+    private static void drawSprite(ImageView view, String path, int rotation) {
+        atlas().apply(view, path, rotation, view.getFitWidth(), view.getFitHeight());
+    }
+
+    /**
+     * Draws the lasers on the board for a given time, with beam segments from the {@link LaserOverlay}
      * @author Kresten (s235103)
      * @param LOS List of spaces the laser passes through
      */
@@ -84,10 +156,7 @@ public class SpaceView extends StackPane {
         if (heading == null) return;
 
         // Draw the laser on the Space which contains the laserStart
-        Image laserImage = new Image("images/laser.png");
-        ImageView laserImageView = new ImageView();
-        laserImageView.setCache(true);
-        laserImageView.setImage(laserImage);
+        ImageView laserImageView = LaserOverlay.acquire(LOS.get(0));
         laserImageView.setFitHeight((double) SPACE_SIZE /8);
         laserImageView.setFitWidth(SPACE_SIZE-((double) SPACE_SIZE /3));
         int rotation = 0;
@@ -108,20 +177,16 @@ public class SpaceView extends StackPane {
                 laserImageView.setTranslateX((-laserImageView.getFitWidth()/2)+ (double) SPACE_SIZE /6);
                 break;
         }
-        laserImageView.setRotate(rotation);
-        lasers.add(laserImageView);
-        BoardView.getSpaceView(LOS.get(0)).getChildren().add(laserImageView);
+        drawSprite(laserImageView, LASER_BEAM, rotation);
+        addToSpaceView(LOS.get(0), laserImageView);
 
         // Draw the laser on the Spaces the laser passes through
         for (int i = 1 ; i < LOS.size()-1 ; i++) {
-            ImageView laserImageView2 = new ImageView();
-            laserImageView2.setCache(true);
-            laserImageView2.setImage(laserImage);
+            ImageView laserImageView2 = LaserOverlay.acquire(LOS.get(i));
             laserImageView2.setFitHeight((double) SPACE_SIZE /8);
             laserImageView2.setFitWidth(SPACE_SIZE);
-            laserImageView2.setRotate(rotation);
-            lasers.add(laserImageView2);
-            BoardView.getSpaceView(LOS.get(i)).getChildren().add(laserImageView2);
+            drawSprite(laserImageView2, LASER_BEAM, rotation);
+            addToSpaceView(LOS.get(i), laserImageView2);
         }
         // Determine if and how the last laser should be drawn
         SpaceTemplate hit = LOS.get(LOS.size() -1);
@@ -133,9 +198,7 @@ public class SpaceView extends StackPane {
 
         if (hit.player != -1) {
             // Draw half-length laser
-            ImageView laserImageView3 = new ImageView();
-            laserImageView3.setCache(true);
-            laserImageView3.setImage(laserImage);
+            ImageView laserImageView3 = LaserOverlay.acquire(hit);
             laserImageView3.setFitHeight((double) SPACE_SIZE /8);
             laserImageView3.setFitWidth((double) SPACE_SIZE /2);
             switch (heading) {
@@ -144,49 +207,56 @@ public class SpaceView extends StackPane {
                 case SOUTH -> laserImageView3.setTranslateY((double) -SPACE_SIZE /4);
                 case WEST -> laserImageView3.setTranslateX((double) SPACE_SIZE /4);
             }
-            laserImageView3.setRotate(rotation);
-            lasers.add(laserImageView3);
-            BoardView.getSpaceView(hit).getChildren().add(laserImageView3);
+            drawSprite(laserImageView3, LASER_BEAM, rotation);
+            addToSpaceView(hit, laserImageView3);
         } else {
             // Draw full length laser
-            ImageView laserImageView4 = new ImageView();
-            laserImageView4.setCache(true);
-            laserImageView4.setImage(laserImage);
+            ImageView laserImageView4 = LaserOverlay.acquire(hit);
             laserImageView4.setFitHeight((double) SPACE_SIZE /8);
             laserImageView4.setFitWidth(SPACE_SIZE);
-            laserImageView4.setRotate(rotation);
-            lasers.add(laserImageView4);
-            BoardView.getSpaceView(hit).getChildren().add(laserImageView4);
+            drawSprite(laserImageView4, LASER_BEAM, rotation);
+            addToSpaceView(hit, laserImageView4);
         }
     }
+    private static void addToSpaceView(SpaceTemplate space, ImageView imageView) {
+        BoardView.addToSpace(space, imageView);
+    }
+
     /**
-     * Sets all laser images to null and clears the list of lasers
+     * Removes all lasers from the board
      * @author Kresten (s235103)
      */
     public static void destroyLasers() {
-        for (ImageView laser : lasers) {
-            laser.setImage(null);
-        }
-        lasers.clear();
+        LaserOverlay.clear();
     }
 
+    /**
+     * Shows the robot on the space, reusing the arrow of the last robot on it
+     */
     private void updatePlayer() {
-        this.getChildren().removeIf(node -> node instanceof Polygon);
-
-        if (space.player != -1) {
-            PlayerTemplate player = gameState.players.get(space.player);
-            Polygon arrow = new Polygon(0.0, 0.0,
+        if (space.player == -1) {
+            if (arrow != null) {
+                arrow.setVisible(false);
+            }
+            return;
+        }
+        PlayerTemplate player = gameState.players.get(space.player);
+        if (arrow == null) {
+            arrow = new Polygon(0.0, 0.0,
                     10.0, 20.0,
                     20.0, 0.0 );
+            this.getChildren().add(arrow);
+        }
+        if (arrowColor == null || !arrowColor.equals(player.color)) {
             try {
                 arrow.setFill(Color.valueOf(player.color));
             } catch (Exception e) {
                 arrow.setFill(Color.MEDIUMPURPLE);
             }
-
-            arrow.setRotate((90*player.heading)%360);
-            this.getChildren().add(arrow);
+            arrowColor = player.color;
         }
+        arrow.setRotate((90*player.heading)%360);
+        arrow.setVisible(true);
     }
 
     public void updateView(GameTemplate gameState, SpaceTemplate space) {
@@ -194,16 +264,29 @@ public class SpaceView extends StackPane {
         this.space = space;
         updatePlayer();
         for (FieldAction action : space.actions) {
-            if (action instanceof EnergyCubeField) {
+            if (action instanceof EnergyCubeField && eneryCubeImageView != null) {
                 eneryCubeImageView.setVisible(((EnergyCubeField) action).getEnergyCubes() != 0);
             }
         }
     }
+    /**
+     * Reuses this view for another space, when a {@link VirtualBoardView} scrolls it out of sight.
+     * The laser beams on the old space are taken off and those on the new space are put on.
+     */
+    public void bind(GameTemplate gameState, SpaceTemplate space) {
+        LaserOverlay.detach(this);
+        this.gameState = gameState;
+        this.space = space;
+        drawBoard();
+        updateView(gameState, space);
+        LaserOverlay.attach(this);
+    }
+
     /**
      * @author Kresten (s235103)
      * @return pushPanel if the space contains one, null otherwise
      */
-    private PushPanel getPushPanel() {
+    private static PushPanel getPushPanel(SpaceTemplate space) {
         if (space.actions.isEmpty()) {
             return null;
         }
@@ -215,264 +298,243 @@ public class SpaceView extends StackPane {
         return null;
     }
     /**
-     * Draws the spaces and their content
+     * Draws the spaces and their content. The image views of the sprites drawn before are reused,
+     * so drawing another space on a view from {@link #bind} does not create new ones.
      * @author Kresten (s235103)
      */
     private void drawBoard() {
-        ImageView spaceImageView = new ImageView();
-        Image spaceImage;
-        spaceImageView.setFitHeight(SPACE_SIZE);
-        spaceImageView.setFitWidth(SPACE_SIZE);
-        if (space.isPit) {
-            spaceImageView.setImage(new Image("images/pit.png"));
-        } else {
-            spaceImageView.setImage(new Image("images/empty.png"));
+        List<Sprite> sprites = getSprites(gameState, space);
+        eneryCubeImageView = null;
+        for (int i = 0; i < sprites.size(); i++) {
+            Sprite sprite = sprites.get(i);
+            ImageView imageView;
+            if (i < spriteViews.size()) {
+                imageView = spriteViews.get(i);
+            } else {
+                imageView = new ImageView();
+                spriteViews.add(imageView);
+                // below the robot and lasers on the space
+                this.getChildren().add(i, imageView);
+            }
+            atlas().apply(imageView, sprite.path, sprite.rotation, sprite.width, sprite.height);
+            imageView.setTranslateX(sprite.translateX);
+            imageView.setTranslateY(sprite.translateY);
+            imageView.setVisible(true);
+            if (sprite.path.equals(ENERGY_CUBE)) {
+                this.eneryCubeImageView = imageView;
+            }
+        }
+        for (int i = sprites.size(); i < spriteViews.size(); i++) {
+            spriteViews.get(i).setVisible(false);
         }
+    }
+
+    /**
+     * Lists the sprites of a space from the bottom up, so the board can be drawn by a
+     * {@link SpaceView} or by a {@link BoardRenderer}. The energy cube is only listed if
+     * there are cubes on the space.
+     * @author Kresten (s235103)
+     * @param gameState the game the space is part of
+     * @param space the space to draw
+     * @return the sprites of the space, without lasers and players
+     */
+    public static List<Sprite> getSprites(GameTemplate gameState, SpaceTemplate space) {
+        List<Sprite> sprites = new ArrayList<>();
+        Sprite spaceSprite = new Sprite(tile(space.isPit ? "pit.png" : "empty.png"), 0, SPACE_SIZE, SPACE_SIZE);
+        Sprite energyCubeSprite = null;
         for (FieldAction action : space.actions) {
             if (action instanceof ConveyorBelt) {
-                drawConveyorBelt(spaceImageView);
+                spaceSprite = drawConveyorBelt(space);
             } else if (action instanceof Checkpoint) {
-                drawCheckpoint(spaceImageView, (Checkpoint) action);
+                spaceSprite = drawCheckpoint((Checkpoint) action);
             } else if (action instanceof EnergyCubeField) {
-                drawEnergyField(spaceImageView, (EnergyCubeField) action);
+                spaceSprite = new Sprite(tile("energyField.png"), 0, SPACE_SIZE, SPACE_SIZE);
+                energyCubeSprite = drawEnergyField((EnergyCubeField) action);
             } else if (action instanceof Gear) {
-                drawGear(spaceImageView, (Gear) action);
+                spaceSprite = drawGear((Gear) action);
             }
         }
-        this.getChildren().add(spaceImageView);
-
-        if (!space.walls.isEmpty()) {
-            for (Heading wall : space.walls) {
-                ImageView wallImageView = new ImageView();
-                Image wallImage = new Image("images/wall.png");
-                wallImageView.setImage(wallImage);
-                wallImageView.setFitHeight(SPACE_SIZE);
-                wallImageView.setFitWidth((double) SPACE_SIZE /6);
-                switch (wall) {
-                    case NORTH:
-                        wallImageView.setRotate(90);
-                        wallImageView.setTranslateY(((double) -SPACE_SIZE /2)+wallImageView.getFitWidth()/2);
-                        break;
-                    case SOUTH:
-                        wallImageView.setRotate(90);
-                        wallImageView.setTranslateY(((double) SPACE_SIZE /2)-wallImageView.getFitWidth()/2);
-                        break;
-                    case EAST:
-                        wallImageView.setTranslateX(((double) SPACE_SIZE /2)-wallImageView.getFitWidth()/2);
-                        break;
-                    case WEST:
-                        wallImageView.setTranslateX(((double) -SPACE_SIZE /2)+wallImageView.getFitWidth()/2);
-                        break;
-                    default:
-                        continue;
-                }
-                this.getChildren().add(wallImageView);
+        sprites.add(spaceSprite);
+        if (energyCubeSprite != null) {
+            sprites.add(energyCubeSprite);
+        }
+
+        for (Heading wall : space.walls) {
+            double width = (double) SPACE_SIZE /6;
+            switch (wall) {
+                case NORTH -> sprites.add(new Sprite(WALL, 90, width, SPACE_SIZE, 0, ((double) -SPACE_SIZE /2)+width/2));
+                case SOUTH -> sprites.add(new Sprite(WALL, 90, width, SPACE_SIZE, 0, ((double) SPACE_SIZE /2)-width/2));
+                case EAST -> sprites.add(new Sprite(WALL, 0, width, SPACE_SIZE, ((double) SPACE_SIZE /2)-width/2, 0));
+                case WEST -> sprites.add(new Sprite(WALL, 0, width, SPACE_SIZE, ((double) -SPACE_SIZE /2)+width/2, 0));
             }
         }
 
-        ImageView fieldView = new ImageView();
-        fieldView.setFitHeight(SPACE_SIZE);
-        fieldView.setFitWidth(SPACE_SIZE);
+        Sprite fieldSprite = null;
         if (space.x == gameState.board.antennaX && space.y == gameState.board.antennaY) {
-            spaceImage = new Image("images/antenna.png");
-            fieldView.setImage(spaceImage);
+            fieldSprite = new Sprite(tile("antenna.png"), 0, SPACE_SIZE, SPACE_SIZE);
         } else if (space.x == gameState.board.rebootStationX && space.y == gameState.board.rebootStationY) {
-            spaceImage = new Image("images/reboot.png");
-            switch (Heading.values()[gameState.board.rebootStationHeading]) {
-                case NORTH -> fieldView.setRotate(0);
-                case SOUTH -> fieldView.setRotate(180);
-                case EAST -> fieldView.setRotate(90);
-                case WEST -> fieldView.setRotate(270);
-            }
-            fieldView.setImage(spaceImage);
+            int rotation = switch (Heading.values()[gameState.board.rebootStationHeading]) {
+                case NORTH -> 0;
+                case SOUTH -> 180;
+                case EAST -> 90;
+                case WEST -> 270;
+            };
+            fieldSprite = new Sprite(tile("reboot.png"), rotation, SPACE_SIZE, SPACE_SIZE);
         }
         if (space.startField) {
-            spaceImage = new Image("images/startField.png");
-            fieldView.setImage(spaceImage);
+            fieldSprite = new Sprite(tile("startField.png"), 0, SPACE_SIZE, SPACE_SIZE);
+        }
+        if (fieldSprite != null) {
+            sprites.add(fieldSprite);
         }
-        this.getChildren().add(fieldView);
 
-        if (getPushPanel() != null) {
-            ImageView pushPanelImageView = createPushImageView();
-            this.getChildren().add(pushPanelImageView);
+        PushPanel pushPanel = getPushPanel(space);
+        if (pushPanel != null) {
+            sprites.add(createPushSprite(pushPanel));
         }
 
-        if (getLaser() != null) {
-            ImageView laserImageView = createLaserImageView();
-            this.getChildren().add(laserImageView);
+        Laser laser = getLaser(space);
+        if (laser != null) {
+            sprites.add(createLaserSprite(laser));
         }
+        return sprites;
+    }
+
+    /**
+     * @return the sprites of the space which do not change during a game, i.e. all but the energy cube
+     */
+    public static List<Sprite> getStaticSprites(GameTemplate gameState, SpaceTemplate space) {
+        List<Sprite> sprites = getSprites(gameState, space);
+        sprites.removeIf(sprite -> sprite.path.equals(ENERGY_CUBE));
+        return sprites;
     }
 
     /**
      * @author Kresten (s235103)
-     * @param spaceImageView ImageView of the space
      * @param gear Gear to be drawn
+     * @return sprite of the space
      */
-    private void drawGear(ImageView spaceImageView, Gear gear) {
-        Image spaceImage;
+    private static Sprite drawGear(Gear gear) {
         if (gear.getHeading() == Heading.WEST) {
-            spaceImage = new Image("images/gearLeft.png");
+            return new Sprite(tile("gearLeft.png"), 0, SPACE_SIZE, SPACE_SIZE);
         } else {
-            spaceImage = new Image("images/gearRight.png");
+            return new Sprite(tile("gearRight.png"), 0, SPACE_SIZE, SPACE_SIZE);
         }
-        spaceImageView.setImage(spaceImage);
     }
 
     /**
-     * Draws the energy field on the board. Initially draws an energyCube
+     * Draws the energy cube of an energy field, if there are cubes left on it
      * @author Kresten (s235103)
-     * @param spaceImageView ImageView of the space
      * @param energyCubeField EnergyCubeField to be drawn
+     * @return sprite of the energy cube, or null if the field is empty
      */
-    private void drawEnergyField(ImageView spaceImageView, EnergyCubeField energyCubeField) {
-        Image spaceImage = new Image("images/energyField.png");
-        spaceImageView.setImage(spaceImage);
-        spaceImageView.setViewOrder(1);
+    private static Sprite drawEnergyField(EnergyCubeField energyCubeField) {
         if (energyCubeField.getEnergyCubes() == 0) {
-            return;
+            return null;
         }
-        Image energyCubeImage = new Image("images/energyCube.png");
-        ImageView energyCubeImageView = new ImageView();
-        energyCubeImageView.setImage(energyCubeImage);
-        energyCubeImageView.setFitHeight(SPACE_SIZE/1.2);
-        energyCubeImageView.setFitWidth(SPACE_SIZE/1.2);
-        this.eneryCubeImageView = energyCubeImageView;
-        this.getChildren().add(energyCubeImageView);
+        return new Sprite(ENERGY_CUBE, 0, atlas().getWidth(ENERGY_CUBE), atlas().getHeight(ENERGY_CUBE));
     }
 
     /**
      * Draws the checkpoint on the board
      * @author Kresten (s235103)
-     * @param spaceImageView ImageView of the space
      * @param checkpoint Checkpoint to be drawn
+     * @return sprite of the space
      */
-    private void drawCheckpoint(ImageView spaceImageView, Checkpoint checkpoint) {
-        Image spaceImage = switch (checkpoint.getId()) {
-            case 2 -> new Image("images/checkpoint2.png");
-            case 3 -> new Image("images/checkpoint3.png");
-            case 4 -> new Image("images/checkpoint4.png");
-            case 5 -> new Image("images/checkpoint5.png");
-            case 6 -> new Image("images/checkpoint6.png");
-            default -> new Image("images/checkpoint1.png");
+    private static Sprite drawCheckpoint(Checkpoint checkpoint) {
+        String spaceImage = switch (checkpoint.getId()) {
+            case 2 -> "checkpoint2.png";
+            case 3 -> "checkpoint3.png";
+            case 4 -> "checkpoint4.png";
+            case 5 -> "checkpoint5.png";
+            case 6 -> "checkpoint6.png";
+            default -> "checkpoint1.png";
         };
-        spaceImageView.setImage(spaceImage);
+        return new Sprite(tile(spaceImage), 0, SPACE_SIZE, SPACE_SIZE);
     }
 
     /**
      * Draws the conveyor belt on the board
      * @author Kresten (s235103), Peter (s235069)
-     * @param spaceImageView ImageView of the space
+     * @param space the space of the conveyor belt
+     * @return sprite of the space
      */
-    private void drawConveyorBelt(ImageView spaceImageView) {
-        Image spaceImage;
+    private static Sprite drawConveyorBelt(SpaceTemplate space) {
+        String spaceImage;
         // TODO: It shouldn't use conveyor
         if (((ConveyorBelt) space.actions.get(0)).getCross() != null &&
                 ((ConveyorBelt) space.actions.get(0)).getBelt() >= 2) {
-            spaceImage = new Image("images/tBlue.png");
+            spaceImage = "tBlue.png";
         } else if (((ConveyorBelt) space.actions.get(0)).getCross() != null &&
                 ((ConveyorBelt) space.actions.get(0)).getBelt() == 1) {
-            spaceImage = new Image("images/tGreen4.png");
+            spaceImage = "tGreen4.png";
         }else if (((ConveyorBelt) space.actions.get(0)).getTurn() == Heading.WEST &&
                 ((ConveyorBelt) space.actions.get(0)).getBelt() >= 2 &&
                 ((ConveyorBelt) space.actions.get(0)).getTea() == Heading.SOUTH) {
-            spaceImage = new Image("images/tBlue1.png");
+            spaceImage = "tBlue1.png";
         }else if (((ConveyorBelt) space.actions.get(0)).getTurn() == Heading.WEST &&
                     ((ConveyorBelt) space.actions.get(0)).getBelt() == 1 &&
                 ((ConveyorBelt) space.actions.get(0)).getTea() == Heading.SOUTH) {
-                spaceImage = new Image("images/tGreen1.png");
+                spaceImage = "tGreen1.png";
         }else if (((ConveyorBelt) space.actions.get(0)).getTurn() == Heading.EAST &&
                 ((ConveyorBelt) space.actions.get(0)).getBelt() >= 2 &&
                 ((ConveyorBelt) space.actions.get(0)).getTea() == Heading.NORTH) {
-            spaceImage = new Image("images/tBlue2.png");
+            spaceImage = "tBlue2.png";
         }else if (((ConveyorBelt) space.actions.get(0)).getTurn() == Heading.EAST &&
                 ((ConveyorBelt) space.actions.get(0)).getBelt() == 1 &&
                 ((ConveyorBelt) space.actions.get(0)).getTea() == Heading.NORTH) {
-            spaceImage = new Image("images/tGreen2.png");
+            spaceImage = "tGreen2.png";
         } else if (((ConveyorBelt) space.actions.get(0)).getTurn() == Heading.WEST &&
                 ((ConveyorBelt) space.actions.get(0)).getBelt() >= 2) {
-            spaceImage = new Image("images/blueTurnLeft.png");
+            spaceImage = "blueTurnLeft.png";
         }else if (((ConveyorBelt) space.actions.get(0)).getTurn() == Heading.EAST &&
                 ((ConveyorBelt) space.actions.get(0)).getBelt() >= 1) {
-            spaceImage = new Image("images/blueTurnRight.png");
+            spaceImage = "blueTurnRight.png";
         }else if (((ConveyorBelt) space.actions.get(0)).getTurn() == Heading.EAST &&
                 ((ConveyorBelt) space.actions.get(0)).getBelt() == 1) {
-            spaceImage = new Image("images/greenTurnRight.png");
+            spaceImage = "greenTurnRight.png";
         }else if (((ConveyorBelt) space.actions.get(0)).getTurn() == Heading.WEST &&
                 ((ConveyorBelt) space.actions.get(0)).getBelt() == 1) {
-            spaceImage = new Image("images/greenTurnLeft.png");
+            spaceImage = "greenTurnLeft.png";
         } else if (((ConveyorBelt) space.actions.get(0)).getBelt() >= 2) {
-            spaceImage = new Image("images/blueConveyor.png");
+            spaceImage = "blueConveyor.png";
         } else {
-            spaceImage = new Image("images/greenConveyor.png");
+            spaceImage = "greenConveyor.png";
         }
 
-        spaceImageView.setImage(spaceImage);
-        switch (((ConveyorBelt) space.actions.get(0)).getHeading()) {
-            case NORTH:
-                spaceImageView.setRotate(0);
-                break;
-            case SOUTH:
-                spaceImageView.setRotate(180);
-                break;
-            case EAST:
-                spaceImageView.setRotate(90);
-                break;
-            case WEST:
-                spaceImageView.setRotate(270);
-                break;
-        }
+        int rotation = switch (((ConveyorBelt) space.actions.get(0)).getHeading()) {
+            case NORTH -> 0;
+            case SOUTH -> 180;
+            case EAST -> 90;
+            case WEST -> 270;
+        };
+        return new Sprite(tile(spaceImage), rotation, SPACE_SIZE, SPACE_SIZE);
     }
 
     /**
-     * Creates an ImageView of the laser to be drawn on the board
+     * Creates the sprite of the laser to be drawn on the board
      * @author Kresten (s235103), Peter (s235069)
-     * @return ImageView of the laser
+     * @param laser the laser of the space
+     * @return sprite of the laser
      */
     @NotNull
-    private ImageView createLaserImageView() {
-        ImageView laserImageView = new ImageView();
-        Image laserImage;
-        Laser laser = getLaser();
-        assert laser != null;
+    private static Sprite createLaserSprite(Laser laser) {
+        String laserImage;
         if (laser.getLazer() == 2) {
-            laserImage = new Image("images/doublelaser.png");
-            laserImageView.setFitHeight(SPACE_SIZE/2.0);
+            laserImage = "images/doublelaser.png";
         } else if (laser.getLazer() > 2) {
-            laserImage = new Image("images/triplelaser.png");
-            laserImageView.setFitHeight(SPACE_SIZE/1.2);
+            laserImage = "images/triplelaser.png";
         } else {
-            laserImage = new Image("images/laserStart.png");
-            laserImageView.setFitHeight(SPACE_SIZE/4.0);
-        }
-        laserImageView.setPreserveRatio(true);
-        laserImageView.setImage(laserImage);
-
-        switch (getLaser().getHeading()) {
-            case NORTH:
-                laserImageView.setRotate(270);
-                laserImageView.setTranslateY(SPACE_SIZE/4.3);
-                break;
-            case SOUTH:
-                laserImageView.setRotate(90);
-                laserImageView.setTranslateY(-SPACE_SIZE/4.3);
-                break;
-            case EAST:
-                laserImageView.setRotate(0);
-                laserImageView.setTranslateX(-SPACE_SIZE/4.3);
-                break;
-            case WEST:
-                laserImageView.setRotate(180);
-                laserImageView.setTranslateX(SPACE_SIZE/4.3);
-                break;
+            laserImage = "images/laserStart.png";
         }
-        return laserImageView;
+        return createEmitterSprite(laserImage, laser.getHeading());
     }
 
     /**
      * @author Kresten (s235103)
      * @return Laser if the space contains one, null otherwise
      */
-    private Laser getLaser() {
+    private static Laser getLaser(SpaceTemplate space) {
         if (space.actions.isEmpty()) {
             return null;
         }
@@ -486,40 +548,58 @@ public class SpaceView extends StackPane {
 
     /**
      * @author Kresten (s235103)
-     * @return Placed ImageView of the pushPanel
+     * @return sprite of the pushPanel
      */
     @NotNull
-    private ImageView createPushImageView() {
-        ImageView pushPanelImageView = new ImageView();
-        PushPanel pushPanel = getPushPanel();
-        assert pushPanel != null;
-        if (getPushPanel().getPushTime() == PushPanel.PushTime.EVEN) {
-            Image pushPanelImage = new Image("images/pushEven.png");
-            pushPanelImageView.setImage(pushPanelImage);
+    private static Sprite createPushSprite(PushPanel pushPanel) {
+        String pushPanelImage;
+        if (pushPanel.getPushTime() == PushPanel.PushTime.EVEN) {
+            pushPanelImage = "images/pushEven.png";
         } else {
-            Image pushPanelImage = new Image("images/pushOdd.png");
-            pushPanelImageView.setImage(pushPanelImage);
+            pushPanelImage = "images/pushOdd.png";
         }
-        pushPanelImageView.setFitHeight(SPACE_SIZE);
-        pushPanelImageView.setPreserveRatio(true);
-        switch (getPushPanel().getHeading()) {
-            case NORTH:
-                pushPanelImageView.setRotate(270);
-                pushPanelImageView.setTranslateY(SPACE_SIZE/4.3);
-                break;
-            case SOUTH:
-                pushPanelImageView.setRotate(90);
-                pushPanelImageView.setTranslateY(-SPACE_SIZE/4.3);
-                break;
-            case EAST:
-                pushPanelImageView.setRotate(0);
-                pushPanelImageView.setTranslateX(-SPACE_SIZE/4.3);
-                break;
-            case WEST:
-                pushPanelImageView.setRotate(180);
-                pushPanelImageView.setTranslateX(SPACE_SIZE/4.3);
-                break;
+        return createEmitterSprite(pushPanelImage, pushPanel.getHeading());
+    }
+
+    /**
+     * Places the sprite of a laser or push panel against the side of the space it faces away from
+     * @author Kresten (s235103)
+     */
+    private static Sprite createEmitterSprite(String path, Heading heading) {
+        double width = atlas().getWidth(path);
+        double height = atlas().getHeight(path);
+        return switch (heading) {
+            case NORTH -> new Sprite(path, 270, width, height, 0, SPACE_SIZE/4.3);
+            case SOUTH -> new Sprite(path, 90, width, height, 0, -SPACE_SIZE/4.3);
+            case EAST -> new Sprite(path, 0, width, height, -SPACE_SIZE/4.3, 0);
+            case WEST -> new Sprite(path, 180, width, height, SPACE_SIZE/4.3, 0);
+        };
+    }
+
+    /**
+     * A sprite of the {@link #atlas()} as it is drawn on a space: rotated clockwise, stretched to
+     * width x height (before the rotation) and centered at (translateX, translateY) from the center
+     * of the space.
+     */
+    public static class Sprite {
+        public final String path;
+        public final int rotation;
+        public final double width;
+        public final double height;
+        public final double translateX;
+        public final double translateY;
+
+        public Sprite(String path, int rotation, double width, double height, double translateX, double translateY) {
+            this.path = path;
+            this.rotation = rotation;
+            this.width = width;
+            this.height = height;
+            this.translateX = translateX;
+            this.translateY = translateY;
+        }
+
+        public Sprite(String path, int rotation, double width, double height) {
+            this(path, rotation, width, height, 0, 0);
         }
-        return pushPanelImageView;
     }
 }
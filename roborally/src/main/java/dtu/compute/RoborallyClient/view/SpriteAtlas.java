@@ -0,0 +1,162 @@
+package dtu.compute.RoborallyClient.view;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All sprites of the board packed into one texture, each in the four rotations it can be drawn in.
+ * An ImageView shows a sprite by its viewport into the atlas, so all views share one image and
+ * none of them needs a rotate transform. The sprites are decoded through the {@link ImageCache}
+ * and packed on shelves; building the atlas does not need the JavaFX Application Thread.
+ */
+public class SpriteAtlas {
+
+    private static final int MAX_WIDTH = 1024;
+    private static final int PADDING = 1;
+
+    private final WritableImage image;
+    private final Map<String, Rectangle2D> regions = new HashMap<>();
+
+    /**
+     * @param sprites the resource paths of the sprites, with the width and height to decode them at
+     *                (0 for either follows the aspect ratio of the image)
+     */
+    public SpriteAtlas(Map<String, double[]> sprites) {
+        List<Image> images = new ArrayList<>();
+        List<int[]> positions = new ArrayList<>();
+        int x = 0, y = 0, shelfHeight = 0, width = 0;
+        for (Map.Entry<String, double[]> sprite : sprites.entrySet()) {
+            Image source = ImageCache.get(sprite.getKey(), sprite.getValue()[0], sprite.getValue()[1]);
+            int w = (int) source.getWidth();
+            int h = (int) source.getHeight();
+            for (int rotation = 0; rotation < 360; rotation += 90) {
+                int rotatedWidth = rotation % 180 == 0 ? w : h;
+                int rotatedHeight = rotation % 180 == 0 ? h : w;
+                if (x + rotatedWidth > MAX_WIDTH) {
+                    x = 0;
+                    y += shelfHeight + PADDING;
+                    shelfHeight = 0;
+                }
+                images.add(source);
+                positions.add(new int[] {x, y, rotatedWidth, rotatedHeight, rotation});
+                regions.put(key(sprite.getKey(), rotation), new Rectangle2D(x, y, rotatedWidth, rotatedHeight));
+                x += rotatedWidth + PADDING;
+                width = Math.max(width, x);
+                shelfHeight = Math.max(shelfHeight, rotatedHeight);
+            }
+        }
+        image = new WritableImage(Math.max(width, 1), Math.max(y + shelfHeight, 1));
+        for (int i = 0; i < images.size(); i++) {
+            int[] position = positions.get(i);
+            draw(images.get(i), position[0], position[1], position[4]);
+        }
+    }
+
+    /**
+     * Shows a sprite at the size it was decoded at.
+     * @param rotation clockwise rotation in degrees, a multiple of 90
+     */
+    public void apply(ImageView view, String path, int rotation) {
+        Rectangle2D region = region(path, 0);
+        apply(view, path, rotation, region.getWidth(), region.getHeight());
+    }
+
+    /**
+     * Shows a sprite stretched to the given size.
+     * @param rotation clockwise rotation in degrees, a multiple of 90
+     * @param width the width of the sprite before rotation
+     * @param height the height of the sprite before rotation
+     */
+    public void apply(ImageView view, String path, int rotation, double width, double height) {
+        rotation = Math.floorMod(rotation, 360);
+        view.setImage(image);
+        view.setViewport(region(path, rotation));
+        view.setPreserveRatio(false);
+        view.setRotate(0);
+        view.setFitWidth(rotation % 180 == 0 ? width : height);
+        view.setFitHeight(rotation % 180 == 0 ? height : width);
+    }
+
+    /**
+     * Draws a sprite on a canvas, centered at (centerX, centerY).
+     * @param rotation clockwise rotation in degrees, a multiple of 90
+     * @param width the width of the sprite before rotation
+     * @param height the height of the sprite before rotation
+     */
+    public void draw(GraphicsContext gc, String path, int rotation, double centerX, double centerY, double width, double height) {
+        rotation = Math.floorMod(rotation, 360);
+        Rectangle2D region = region(path, rotation);
+        double rotatedWidth = rotation % 180 == 0 ? width : height;
+        double rotatedHeight = rotation % 180 == 0 ? height : width;
+        gc.drawImage(image, region.getMinX(), region.getMinY(), region.getWidth(), region.getHeight(),
+                centerX - rotatedWidth / 2, centerY - rotatedHeight / 2, rotatedWidth, rotatedHeight);
+    }
+
+    /**
+     * @return the width the sprite was decoded at
+     */
+    public double getWidth(String path) {
+        return region(path, 0).getWidth();
+    }
+
+    /**
+     * @return the height the sprite was decoded at
+     */
+    public double getHeight(String path) {
+        return region(path, 0).getHeight();
+    }
+
+    public Image getImage() {
+        return image;
+    }
+
+    private Rectangle2D region(String path, int rotation) {
+        Rectangle2D region = regions.get(key(path, rotation));
+        if (region == null) {
+            throw new IllegalArgumentException("Not in the atlas: " + path + " rotated by " + rotation);
+        }
+        return region;
+    }
+
+    private static String key(String path, int rotation) {
+        return path + "@" + rotation;
+    }
+
+    /**
+     * Copies the source into the atlas, rotated clockwise by the given degrees.
+     */
+    private void draw(Image source, int x, int y, int rotation) {
+        int w = (int) source.getWidth();
+        int h = (int) source.getHeight();
+        if (source.getPixelReader() == null || w == 0 || h == 0) {
+            return; // not decoded, leave the region empty
+        }
+        int[] pixels = new int[w * h];
+        source.getPixelReader().getPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), pixels, 0, w);
+        int[] rotated = new int[w * h];
+        int rotatedWidth = rotation % 180 == 0 ? w : h;
+        for (int sy = 0; sy < h; sy++) {
+            for (int sx = 0; sx < w; sx++) {
+                int dx, dy;
+                switch (rotation) {
+                    case 90 -> { dx = h - 1 - sy; dy = sx; }
+                    case 180 -> { dx = w - 1 - sx; dy = h - 1 - sy; }
+                    case 270 -> { dx = sy; dy = w - 1 - sx; }
+                    default -> { dx = sx; dy = sy; }
+                }
+                rotated[dy * rotatedWidth + dx] = pixels[sy * w + sx];
+            }
+        }
+        image.getPixelWriter().setPixels(x, y, rotatedWidth, rotation % 180 == 0 ? h : w,
+                PixelFormat.getIntArgbInstance(), rotated, 0, rotatedWidth);
+    }
+}
@@ -0,0 +1,183 @@
+package dtu.compute.RoborallyClient.view;
+
+import dtu.compute.RoborallyClient.fileaccess.model.BoardTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import javafx.scene.Group;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.transform.Scale;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static dtu.compute.RoborallyClient.view.SpaceView.SPACE_SIZE;
+
+/**
+ * A board which only has {@link SpaceView}s for the spaces in its viewport, so the size of the
+ * scene graph does not depend on the size of the board. When the viewport moves, the views of the
+ * spaces scrolled out of sight are reused for the spaces scrolled into sight.
+ * Scrolling or dragging pans the board, scrolling with Ctrl held down (or pinching) zooms.
+ */
+public class VirtualBoardView extends Region {
+
+    private static final double MIN_ZOOM = 0.2;
+    private static final double MAX_ZOOM = 3.0;
+    private static final int PREF_COLUMNS = 13;
+    private static final int PREF_ROWS = 10;
+
+    private final Group content = new Group();
+    private final Scale scale = new Scale(1, 1, 0, 0);
+    private final Map<Integer, SpaceView> visibleSpaces = new HashMap<>();
+    private final Deque<SpaceView> unusedSpaces = new ArrayDeque<>();
+    private final BoardTemplate board;
+    private GameTemplate gameState;
+
+    private double zoom = 1;
+    private double panX;
+    private double panY;
+    private double dragX;
+    private double dragY;
+
+    public VirtualBoardView(@NotNull GameTemplate gameState) {
+        this.gameState = gameState;
+        this.board = gameState.board;
+
+        content.getTransforms().add(scale);
+        getChildren().add(content);
+        Rectangle clip = new Rectangle();
+        clip.widthProperty().bind(widthProperty());
+        clip.heightProperty().bind(heightProperty());
+        setClip(clip);
+        setPrefSize(Math.min(board.width, PREF_COLUMNS) * SPACE_SIZE, Math.min(board.height, PREF_ROWS) * SPACE_SIZE);
+
+        setOnScroll(event -> {
+            if (event.isControlDown()) {
+                zoomAt(event.getDeltaY() > 0 ? 1.1 : 1 / 1.1, event.getX(), event.getY());
+            } else {
+                panBy(-event.getDeltaX(), -event.getDeltaY());
+            }
+            event.consume();
+        });
+        setOnZoom(event -> {
+            zoomAt(event.getZoomFactor(), event.getX(), event.getY());
+            event.consume();
+        });
+        setOnMousePressed(event -> {
+            if (event.getButton() != MouseButton.PRIMARY) return;
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+        setOnMouseDragged(event -> {
+            if (event.getButton() != MouseButton.PRIMARY) return;
+            panBy(dragX - event.getX(), dragY - event.getY());
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+    }
+
+    /**
+     * Updates the visible spaces among the dirty ones; the others are updated when they scroll into sight.
+     * @param dirtyCells the spaces to update, by their index in the list of spaces of the board
+     */
+    public void updateView(GameTemplate gameState, BitSet dirtyCells) {
+        this.gameState = gameState;
+        for (Map.Entry<Integer, SpaceView> entry : visibleSpaces.entrySet()) {
+            int index = entry.getKey();
+            int spaceIndex = spaceIndex(index % board.width, index / board.width);
+            if (dirtyCells.get(spaceIndex)) {
+                entry.getValue().updateView(gameState, gameState.board.spaces.get(spaceIndex));
+            }
+        }
+    }
+
+    /**
+     * @return the view of the space, or null if the space is not in the viewport
+     */
+    public SpaceView getSpaceView(int x, int y) {
+        return visibleSpaces.get(x + y * board.width);
+    }
+
+    /**
+     * @return the number of space views, visible or waiting to be reused
+     */
+    public int getSpaceViewCount() {
+        return visibleSpaces.size() + unusedSpaces.size();
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Zooms by the given factor, keeping the point (x, y) of the viewport in place.
+     */
+    public void zoomAt(double factor, double x, double y) {
+        double newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+        panX = (panX + x) * newZoom / zoom - x;
+        panY = (panY + y) * newZoom / zoom - y;
+        zoom = newZoom;
+        requestLayout();
+    }
+
+    public void panBy(double dx, double dy) {
+        panX += dx;
+        panY += dy;
+        requestLayout();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double cellSize = SPACE_SIZE * zoom;
+        panX = Math.max(0, Math.min(panX, board.width * cellSize - getWidth()));
+        panY = Math.max(0, Math.min(panY, board.height * cellSize - getHeight()));
+        scale.setX(zoom);
+        scale.setY(zoom);
+        content.setTranslateX(-panX);
+        content.setTranslateY(-panY);
+
+        int firstX = (int) Math.floor(panX / cellSize);
+        int firstY = (int) Math.floor(panY / cellSize);
+        int lastX = Math.min(board.width - 1, (int) Math.floor((panX + getWidth()) / cellSize));
+        int lastY = Math.min(board.height - 1, (int) Math.floor((panY + getHeight()) / cellSize));
+
+        Iterator<Map.Entry<Integer, SpaceView>> iterator = visibleSpaces.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, SpaceView> entry = iterator.next();
+            int x = entry.getKey() % board.width;
+            int y = entry.getKey() / board.width;
+            if (x < firstX || x > lastX || y < firstY || y > lastY) {
+                SpaceView spaceView = entry.getValue();
+                spaceView.setVisible(false);
+                unusedSpaces.push(spaceView);
+                iterator.remove();
+            }
+        }
+        for (int x = firstX; x <= lastX; x++) {
+            for (int y = firstY; y <= lastY; y++) {
+                int index = x + y * board.width;
+                if (visibleSpaces.containsKey(index)) continue;
+                SpaceView spaceView = unusedSpaces.poll();
+                if (spaceView == null) {
+                    spaceView = new SpaceView(gameState, gameState.board.spaces.get(spaceIndex(x, y)));
+                    spaceView.updateView(gameState, spaceView.space);
+                    content.getChildren().add(spaceView);
+                } else {
+                    spaceView.bind(gameState, gameState.board.spaces.get(spaceIndex(x, y)));
+                    spaceView.setVisible(true);
+                }
+                spaceView.resizeRelocate(x * SPACE_SIZE, y * SPACE_SIZE, SPACE_SIZE, SPACE_SIZE);
+                visibleSpaces.put(index, spaceView);
+            }
+        }
+    }
+
+    private int spaceIndex(int x, int y) {
+        return x * board.height + y;
+    }
+}
@@ -0,0 +1,68 @@
+package dtu.compute.RoborallyClient.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests the scheduling of polls without a game state, where the interval starts at 500 ms.
+ */
+class PollSchedulerTest {
+
+    private final BlockingQueue<CompletableFuture<Boolean>> polls = new LinkedBlockingQueue<>();
+    private final PollScheduler scheduler = new PollScheduler(() -> {
+        CompletableFuture<Boolean> poll = new CompletableFuture<>();
+        polls.add(poll);
+        return poll;
+    }, () -> null, () -> "a");
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    void pollNowDuringPollPollsRightAfterIt() throws Exception {
+        scheduler.start();
+        CompletableFuture<Boolean> first = polls.poll(1, TimeUnit.SECONDS);
+        assertNotNull(first);
+        scheduler.pollNow();
+        first.complete(false);
+        // without the poll asked for, the next one would come after the interval of 500 ms or more
+        assertNotNull(polls.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(500, scheduler.getCurrentInterval());
+    }
+
+    @Test
+    void pollsDoNotOverlap() throws Exception {
+        scheduler.start();
+        CompletableFuture<Boolean> first = polls.poll(1, TimeUnit.SECONDS);
+        assertNotNull(first);
+        scheduler.pollNow();
+        scheduler.pollNow();
+        assertNull(polls.poll(200, TimeUnit.MILLISECONDS));
+        first.complete(true);
+        assertNotNull(polls.poll(200, TimeUnit.MILLISECONDS));
+        assertNull(polls.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void unchangedPollsDoubleTheInterval() throws Exception {
+        scheduler.start();
+        polls.poll(1, TimeUnit.SECONDS).complete(false);
+        // the completion may be handled on the thread of the scheduler
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (scheduler.getCurrentInterval() == 500 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1000, scheduler.getCurrentInterval());
+    }
+}
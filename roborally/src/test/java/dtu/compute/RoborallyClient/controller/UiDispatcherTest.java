@@ -0,0 +1,75 @@
+package dtu.compute.RoborallyClient.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the coalescing of {@link UiDispatcher}, with the batches run by the test instead of the JavaFX thread.
+ */
+class UiDispatcherTest {
+
+    private final Queue<Runnable> batches = new ArrayDeque<>();
+    private final UiDispatcher dispatcher = new UiDispatcher(batches::add);
+    private final List<String> shown = new ArrayList<>();
+
+    private void runBatches() {
+        while (!batches.isEmpty()) {
+            batches.poll().run();
+        }
+    }
+
+    @Test
+    void onlyTheLatestBoardIsShown() {
+        dispatcher.post(UiDispatcher.Slot.BOARD, () -> shown.add("board 1"));
+        dispatcher.post(UiDispatcher.Slot.BOARD, () -> shown.add("board 2"));
+        assertEquals(1, dispatcher.getQueueDepth());
+        runBatches();
+        assertEquals(List.of("board 2"), shown);
+        assertEquals(2, dispatcher.getPostedCount());
+        assertEquals(1, dispatcher.getDroppedCount());
+        assertEquals(1, dispatcher.getBatchCount());
+    }
+
+    @Test
+    void slotsRunInTheirOrderInOneBatch() {
+        dispatcher.post(UiDispatcher.Slot.LASERS, () -> shown.add("lasers"));
+        dispatcher.post(UiDispatcher.Slot.BOARD, () -> shown.add("board"));
+        assertEquals(1, batches.size());
+        runBatches();
+        assertEquals(List.of("board", "lasers"), shown);
+        assertEquals(0, dispatcher.getDroppedCount());
+        assertEquals(0, dispatcher.getQueueDepth());
+    }
+
+    @Test
+    void updatesPostedDuringABatchRunInTheSameBatch() {
+        dispatcher.post(UiDispatcher.Slot.BOARD, () -> {
+            shown.add("board");
+            dispatcher.post(UiDispatcher.Slot.LASERS, () -> shown.add("lasers"));
+        });
+        runBatches();
+        assertEquals(List.of("board", "lasers"), shown);
+        assertEquals(1, dispatcher.getBatchCount());
+    }
+
+    @Test
+    void failingUpdateDoesNotStopTheOthers() {
+        dispatcher.post(UiDispatcher.Slot.BOARD, () -> {
+            throw new IllegalStateException("broken board");
+        });
+        dispatcher.post(UiDispatcher.Slot.WINNER, () -> shown.add("winner"));
+        runBatches();
+        assertEquals(List.of("winner"), shown);
+        // the next post schedules a new batch
+        dispatcher.post(UiDispatcher.Slot.LOBBY, () -> shown.add("lobby"));
+        runBatches();
+        assertEquals(List.of("winner", "lobby"), shown);
+        assertEquals(2, dispatcher.getBatchCount());
+    }
+}
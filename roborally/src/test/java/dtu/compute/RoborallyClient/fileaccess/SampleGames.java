@@ -0,0 +1,175 @@
+package dtu.compute.RoborallyClient.fileaccess;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import dtu.compute.RoborallyClient.fields.Checkpoint;
+import dtu.compute.RoborallyClient.fields.ConveyorBelt;
+import dtu.compute.RoborallyClient.fields.EnergyCubeField;
+import dtu.compute.RoborallyClient.fields.FieldAction;
+import dtu.compute.RoborallyClient.fields.Gear;
+import dtu.compute.RoborallyClient.fields.Laser;
+import dtu.compute.RoborallyClient.fields.PushPanel;
+import dtu.compute.RoborallyClient.fileaccess.model.BoardTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.PlayerTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.SpaceTemplate;
+import dtu.compute.RoborallyClient.model.Heading;
+
+import java.util.List;
+
+/**
+ * Game states for the tests, with every kind of field action on the board, and the JSON the
+ * server sends for them. The JSON is written with the reflective Gson and {@link Adapter},
+ * like the templates were read and written before the hand-written adapters.
+ */
+public class SampleGames {
+
+    /**
+     * @return a Gson instance with the reflective adapters of the templates and {@link Adapter} for the field actions
+     */
+    public static Gson reflectiveGson() {
+        return new GsonBuilder().registerTypeAdapter(FieldAction.class, new Adapter<FieldAction>()).create();
+    }
+
+    /**
+     * @return a Gson instance with the {@link TemplateAdapters}, like the client uses
+     */
+    public static Gson templateGson() {
+        return new GsonBuilder().registerTypeAdapterFactory(new TemplateAdapters()).create();
+    }
+
+    public static BoardTemplate board(int width, int height) {
+        BoardTemplate board = new BoardTemplate();
+        board.width = width;
+        board.height = height;
+        board.antennaX = 0;
+        board.antennaY = height / 2;
+        board.antennaHeading = Heading.EAST.ordinal();
+        board.rebootStationX = width - 1;
+        board.rebootStationY = 0;
+        board.rebootStationHeading = Heading.SOUTH.ordinal();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                SpaceTemplate space = new SpaceTemplate();
+                space.x = x;
+                space.y = y;
+                space.isPit = (x * 7 + y) % 23 == 0;
+                space.startField = x == 0;
+                space.player = -1;
+                if ((x + y) % 5 == 0) space.walls.add(Heading.values()[(x + y) % 4]);
+                FieldAction action = action(x * height + y);
+                if (action != null) space.actions.add(action);
+                board.spaces.add(space);
+            }
+        }
+        return board;
+    }
+
+    private static FieldAction action(int index) {
+        Heading heading = Heading.values()[index % 4];
+        switch (index % 9) {
+            case 1 -> {
+                ConveyorBelt belt = new ConveyorBelt();
+                belt.setHeading(heading);
+                belt.setTurn(index % 2 == 0 ? heading.next() : null);
+                belt.setBelt(1 + index % 2);
+                return belt;
+            }
+            case 2 -> {
+                Laser laser = new Laser();
+                laser.setHeading(heading);
+                laser.setLazer(1 + index % 3);
+                return laser;
+            }
+            case 3 -> {
+                Gear gear = new Gear();
+                gear.setHeading(heading);
+                return gear;
+            }
+            case 4 -> {
+                PushPanel pushPanel = new PushPanel();
+                pushPanel.setHeading(heading);
+                pushPanel.setPushTime(index % 2 == 0 ? PushPanel.PushTime.EVEN : PushPanel.PushTime.ODD);
+                return pushPanel;
+            }
+            case 5 -> {
+                return new Checkpoint(1 + index % 6);
+            }
+            case 6 -> {
+                EnergyCubeField field = new EnergyCubeField();
+                field.setEnergyCubes(1);
+                return field;
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    public static PlayerTemplate player(int id, String name, int x, int y) {
+        PlayerTemplate player = new PlayerTemplate();
+        player.id = id;
+        player.name = name;
+        player.color = List.of("red", "green", "blue", "yellow", "orange", "grey").get(id % 6);
+        player.xPosition = x;
+        player.yPosition = y;
+        player.heading = id % 4;
+        player.drawPile.addAll(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+        player.discardPile.addAll(List.of(11, 12));
+        player.program = new int[] {1, 2, 3, 0, 0};
+        player.hand = new int[] {4, 5, 6, 7, 8, 9, 10, 11};
+        player.permanent = new int[] {1, 0, 0};
+        player.permanentActive = new boolean[] {true, false, false};
+        player.temporary = new int[] {0, 2, 0};
+        player.temporaryActive = new boolean[] {false, false, true};
+        player.checkpoints = id;
+        player.energyBank = 5 + id;
+        return player;
+    }
+
+    /**
+     * @return a game on a board of the given size with the given number of players
+     */
+    public static GameTemplate game(int width, int height, int players) {
+        GameTemplate gameState = new GameTemplate();
+        gameState.gameId = 7;
+        gameState.board = board(width, height);
+        for (int i = 0; i < players; i++) {
+            gameState.players.add(player(i, "player" + i, 0, i % height));
+            gameState.playerOrder.add(i);
+        }
+        gameState.currentPlayer = 0;
+        gameState.playPhase = 1;
+        gameState.step = 2;
+        gameState.currentCommand = 3;
+        gameState.upgradeShop.addAll(List.of(1, 4, 6));
+        gameState.timeStamp = "2024-06-01T12:00:00.000";
+        gameState.mapName = "sample";
+        return gameState;
+    }
+
+    /**
+     * @return the response of the game state endpoint for the game, with the game state as a
+     * string inside the response like the server sends it, and a laser through the first column
+     */
+    public static String response(GameTemplate gameState) {
+        JsonObject response = new JsonObject();
+        response.addProperty("gameState", reflectiveGson().toJson(gameState));
+        JsonArray lasers = new JsonArray();
+        JsonObject laser = new JsonObject();
+        laser.addProperty("heading", Heading.SOUTH.ordinal());
+        JsonArray lineOfSight = new JsonArray();
+        for (int y = 0; y < gameState.board.height; y++) {
+            JsonObject space = new JsonObject();
+            space.addProperty("x", 0);
+            space.addProperty("y", y);
+            lineOfSight.add(space);
+        }
+        laser.add("LOS", lineOfSight);
+        lasers.add(laser);
+        response.add("lasers", lasers);
+        return response.toString();
+    }
+}
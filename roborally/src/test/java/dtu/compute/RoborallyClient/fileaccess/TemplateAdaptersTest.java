@@ -0,0 +1,86 @@
+package dtu.compute.RoborallyClient.fileaccess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import dtu.compute.RoborallyClient.fields.ConveyorBelt;
+import dtu.compute.RoborallyClient.fields.FieldAction;
+import dtu.compute.RoborallyClient.fields.PushPanel;
+import dtu.compute.RoborallyClient.fileaccess.model.BoardTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.SpaceTemplate;
+import dtu.compute.RoborallyClient.model.Heading;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the {@link TemplateAdapters} read and write the same JSON as the reflective Gson with {@link Adapter}.
+ */
+class TemplateAdaptersTest {
+
+    private final Gson reflectiveGson = SampleGames.reflectiveGson();
+    private final Gson templateGson = SampleGames.templateGson();
+
+    @Test
+    void readsWhatTheReflectiveGsonWrites() {
+        GameTemplate gameState = SampleGames.game(9, 8, 3);
+        String json = reflectiveGson.toJson(gameState);
+        GameTemplate read = templateGson.fromJson(json, GameTemplate.class);
+        assertEquals(reflectiveGson.toJsonTree(gameState), reflectiveGson.toJsonTree(read));
+    }
+
+    @Test
+    void writesWhatTheReflectiveGsonReads() {
+        GameTemplate gameState = SampleGames.game(9, 8, 3);
+        String json = templateGson.toJson(gameState);
+        GameTemplate read = reflectiveGson.fromJson(json, GameTemplate.class);
+        assertEquals(reflectiveGson.toJsonTree(gameState), reflectiveGson.toJsonTree(read));
+    }
+
+    @Test
+    void readsNullListsAsEmpty() {
+        SpaceTemplate space = templateGson.fromJson("{\"walls\":null,\"actions\":null,\"x\":2,\"y\":3}", SpaceTemplate.class);
+        assertTrue(space.walls.isEmpty());
+        assertTrue(space.actions.isEmpty());
+        assertEquals(2, space.x);
+        assertEquals(3, space.y);
+
+        BoardTemplate board = templateGson.fromJson("{\"width\":1,\"height\":1,\"spaces\":null}", BoardTemplate.class);
+        assertTrue(board.spaces.isEmpty());
+
+        GameTemplate gameState = templateGson.fromJson("{\"gameId\":1,\"players\":null}", GameTemplate.class);
+        assertTrue(gameState.players.isEmpty());
+    }
+
+    @Test
+    void readsUnknownHeadingsAsNull() {
+        SpaceTemplate space = templateGson.fromJson(
+                "{\"walls\":[\"NORTH\",\"UP\"],\"actions\":[{\"CLASSNAME\":\"dtu.compute.RoborallyServer.controller.ConveyorBelt\","
+                        + "\"INSTANCE\":{\"heading\":\"SIDEWAYS\",\"belt\":2}}]}", SpaceTemplate.class);
+        assertEquals(Heading.NORTH, space.walls.get(0));
+        assertNull(space.walls.get(1));
+        ConveyorBelt belt = (ConveyorBelt) space.actions.get(0);
+        assertNull(belt.getHeading());
+        assertEquals(2, belt.getBelt());
+    }
+
+    @Test
+    void readsUnknownPushTimesAsNull() {
+        FieldAction action = templateGson.fromJson(
+                "{\"CLASSNAME\":\"dtu.compute.RoborallyClient.fields.PushPanel\",\"INSTANCE\":{\"heading\":\"EAST\",\"pushTime\":\"NEVER\"}}",
+                FieldAction.class);
+        PushPanel pushPanel = (PushPanel) action;
+        assertEquals(Heading.EAST, pushPanel.getHeading());
+        assertNull(pushPanel.getPushTime());
+    }
+
+    @Test
+    void unknownFieldActionsAreRejectedByBothAdapters() {
+        String json = "{\"CLASSNAME\":\"java.util.ArrayList\",\"INSTANCE\":{}}";
+        assertThrows(JsonParseException.class, () -> templateGson.fromJson(json, FieldAction.class));
+        assertThrows(JsonParseException.class, () -> reflectiveGson.fromJson(json, FieldAction.class));
+    }
+}
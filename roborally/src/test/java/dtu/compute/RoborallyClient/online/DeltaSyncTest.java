@@ -0,0 +1,93 @@
+package dtu.compute.RoborallyClient.online;
+
+import com.google.gson.Gson;
+import dtu.compute.RoborallyClient.fileaccess.SampleGames;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Syncs the game state of a 6-player game with the {@link GameStateStandIn} through
+ * {@link RequestCenter#getGameStateAsync}, like the poll of the client does.
+ */
+class DeltaSyncTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final Gson gson = SampleGames.templateGson();
+    private GameTemplate gameState = SampleGames.game(13, 10, 6);
+    private GameStateStandIn server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new GameStateStandIn(gameState);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private GameStateUpdate fetch(String since) throws Exception {
+        URI uri = server.gameStateUri();
+        if (since != null) {
+            uri = URI.create(uri + "?" + GameStateDelta.QUERY + "=" + URLEncoder.encode(since, StandardCharsets.UTF_8));
+        }
+        Response<GameStateUpdate> response = RequestCenter.getGameStateAsync(uri, null, TIMEOUT, gson).get(10, TimeUnit.SECONDS);
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        return response.getItem();
+    }
+
+    @Test
+    void deltasKeepTheClientInSync() throws Exception {
+        GameTemplate held = fetch(null).gameState;
+        int snapshotBytes = server.getLastResponseBytes();
+        for (int step = 0; step < 5; step++) {
+            gameState = GameStateDeltaTest.activationStep(gameState);
+            server.setGameState(gameState);
+            GameStateUpdate update = fetch(held.timeStamp);
+            assertNull(update.gameState);
+            assertNotNull(update.delta);
+            // a step of the activation phase is much smaller as a delta than as a snapshot
+            assertTrue(server.getLastResponseBytes() * 10 < snapshotBytes,
+                    "delta of " + server.getLastResponseBytes() + " bytes, snapshot of " + snapshotBytes + " bytes");
+            held = GameStateDelta.apply(held, update.delta);
+            assertNotNull(held);
+            assertEquals(gson.toJsonTree(gameState), gson.toJsonTree(held));
+        }
+    }
+
+    @Test
+    void rejectedDeltaFallsBackToASnapshot() throws Exception {
+        GameTemplate held = fetch(null).gameState;
+        gameState = GameStateDeltaTest.activationStep(gameState);
+        server.setGameState(gameState);
+        server.setCorruptChecksums(true);
+        GameStateUpdate update = fetch(held.timeStamp);
+        assertNull(GameStateDelta.apply(held, update.delta));
+
+        // like the client after a rejected delta, ask for the full game state
+        GameStateUpdate snapshot = fetch(null);
+        assertNull(snapshot.delta);
+        assertEquals(gson.toJsonTree(gameState), gson.toJsonTree(snapshot.gameState));
+    }
+
+    @Test
+    void unknownVersionGetsASnapshot() throws Exception {
+        GameStateUpdate update = fetch("a version the server never had");
+        assertNull(update.delta);
+        assertEquals(gson.toJsonTree(gameState), gson.toJsonTree(update.gameState));
+    }
+}
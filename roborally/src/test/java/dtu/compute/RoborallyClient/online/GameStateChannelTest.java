@@ -0,0 +1,118 @@
+package dtu.compute.RoborallyClient.online;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the game state channel delivers pushed game states and tells the client
+ * exactly once when it has to fall back to polling.
+ */
+class GameStateChannelTest {
+
+    private WebSocketStandIn server;
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+    private final AtomicInteger closedCount = new AtomicInteger();
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new WebSocketStandIn();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.close();
+    }
+
+    private GameStateChannel open() throws Exception {
+        GameStateChannel channel = GameStateChannel.open(server.uri("/lobbies/1/game/state/stream/a"), messages::add, () -> {
+            closedCount.incrementAndGet();
+            closed.countDown();
+        }).get(5, TimeUnit.SECONDS);
+        assertTrue(server.awaitConnection());
+        return channel;
+    }
+
+    @Test
+    void pushedMessagesReachTheHandler() throws Exception {
+        GameStateChannel channel = open();
+        server.sendText("{\"gameState\":1}");
+        server.sendText("{\"gameState\":2}");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (messages.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("{\"gameState\":1}", "{\"gameState\":2}"), messages);
+        assertTrue(channel.isOpen());
+        assertEquals(0, closedCount.get());
+    }
+
+    @Test
+    void closeByServerFallsBackOnce() throws Exception {
+        GameStateChannel channel = open();
+        server.sendClose(1001);
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        // the client answers the close, which must not call the handler a second time
+        Thread.sleep(100);
+        assertEquals(1, closedCount.get());
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    void droppedConnectionFallsBackOnce() throws Exception {
+        GameStateChannel channel = open();
+        server.drop();
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(1, closedCount.get());
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    void closeByClientDoesNotFallBack() throws Exception {
+        GameStateChannel channel = open();
+        channel.close();
+        assertFalse(channel.isOpen());
+        // opcode 8 is the close frame
+        assertEquals(8, server.readOpcode());
+        server.sendClose(1000);
+        assertFalse(closed.await(300, TimeUnit.MILLISECONDS));
+        assertEquals(0, closedCount.get());
+    }
+
+    @Test
+    void serverWithoutStreamFailsTheOpening() throws Exception {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        httpServer.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        httpServer.start();
+        try {
+            URI location = URI.create("ws://localhost:" + httpServer.getAddress().getPort() + "/lobbies/1/game/state/stream/a");
+            assertThrows(ExecutionException.class, () -> GameStateChannel.open(location, messages::add, closedCount::incrementAndGet)
+                    .get(5, TimeUnit.SECONDS));
+            // the caller polls because the opening failed, not because of the closed handler
+            assertEquals(0, closedCount.get());
+        } finally {
+            httpServer.stop(0);
+        }
+    }
+}
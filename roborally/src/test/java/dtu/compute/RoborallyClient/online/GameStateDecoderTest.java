@@ -0,0 +1,106 @@
+package dtu.compute.RoborallyClient.online;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import dtu.compute.RoborallyClient.fileaccess.SampleGames;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests that {@link GameStateDecoder} decodes a game state response to the same game state and
+ * lasers as the path it replaced: parsing the whole response into a JsonObject, and then the
+ * game state string in it with the reflective Gson.
+ */
+class GameStateDecoderTest {
+
+    private final Gson reflectiveGson = SampleGames.reflectiveGson();
+    private final Gson templateGson = SampleGames.templateGson();
+
+    private GameTemplate decodeAsBefore(String body) {
+        JsonObject response = new JsonParser().parse(body).getAsJsonObject();
+        return reflectiveGson.fromJson(response.get("gameState").getAsString(), GameTemplate.class);
+    }
+
+    /**
+     * Compares two game states by their JSON, written with the same Gson instance.
+     */
+    private void assertSameGameState(GameTemplate expected, GameTemplate actual) {
+        assertEquals(reflectiveGson.toJsonTree(expected), reflectiveGson.toJsonTree(actual));
+    }
+
+    @Test
+    void decodesTheSameGameStateAsBefore() throws IOException {
+        String body = SampleGames.response(SampleGames.game(12, 10, 4));
+        GameStateUpdate update = GameStateDecoder.decode(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), templateGson);
+        assertSameGameState(decodeAsBefore(body), update.gameState);
+    }
+
+    @Test
+    void decodesTheSameLasersAsBefore() throws IOException {
+        String body = SampleGames.response(SampleGames.game(12, 10, 4));
+        GameStateUpdate update = GameStateDecoder.decode(new StringReader(body), templateGson);
+        JsonArray lasers = new JsonParser().parse(body).getAsJsonObject().get("lasers").getAsJsonArray();
+        assertEquals(lasers.size(), update.lasers.size());
+        for (int i = 0; i < lasers.size(); i++) {
+            JsonObject laser = lasers.get(i).getAsJsonObject();
+            JsonArray lineOfSight = laser.get("LOS").getAsJsonArray();
+            GameStateUpdate.LaserBeam beam = update.lasers.get(i);
+            assertEquals(laser.get("heading").getAsInt(), beam.heading);
+            int[] xs = new int[lineOfSight.size()];
+            int[] ys = new int[lineOfSight.size()];
+            for (int j = 0; j < lineOfSight.size(); j++) {
+                xs[j] = lineOfSight.get(j).getAsJsonObject().get("x").getAsInt();
+                ys[j] = lineOfSight.get(j).getAsJsonObject().get("y").getAsInt();
+            }
+            assertArrayEquals(xs, beam.x);
+            assertArrayEquals(ys, beam.y);
+        }
+    }
+
+    @Test
+    void decodesAGameStateSentAsAnObject() throws IOException {
+        GameTemplate gameState = SampleGames.game(5, 5, 2);
+        JsonObject response = new JsonObject();
+        response.add("gameState", reflectiveGson.toJsonTree(gameState));
+        response.add("lasers", new JsonArray());
+        GameStateUpdate update = GameStateDecoder.decode(new StringReader(response.toString()), templateGson);
+        assertSameGameState(gameState, update.gameState);
+        assertEquals(0, update.lasers.size());
+    }
+
+    @Test
+    void decodesTheInfoOfAFailedRequest() throws IOException {
+        GameStateUpdate update = GameStateDecoder.decode(new StringReader("{\"info\":\"Not your turn\",\"gameState\":null}"), templateGson);
+        assertEquals("Not your turn", update.info);
+        assertNull(update.gameState);
+    }
+
+    @Test
+    void plainTextBodyGivesAnEmptyUpdate() throws IOException {
+        GameStateUpdate update = GameStateDecoder.decode(new StringReader("Lobby not found"), templateGson);
+        assertNull(update.gameState);
+        assertNull(update.delta);
+        assertEquals(0, update.lasers.size());
+    }
+
+    @Test
+    void decodesADelta() throws IOException {
+        String delta = "{\"base\":\"1\",\"version\":\"2\",\"checksum\":\"00\"}";
+        GameStateUpdate update = GameStateDecoder.decode(new StringReader("{\"delta\":" + delta + "}"), templateGson);
+        JsonElement expected = new JsonParser().parse(delta);
+        assertEquals(expected, update.delta);
+        assertNull(update.gameState);
+    }
+}
@@ -0,0 +1,84 @@
+package dtu.compute.RoborallyClient.online;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import dtu.compute.RoborallyClient.fields.FieldAction;
+import dtu.compute.RoborallyClient.fileaccess.Adapter;
+import dtu.compute.RoborallyClient.fileaccess.SampleGames;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the time and allocations of decoding a game state response the way it was done
+ * before, to a string, then a JsonObject, then the game state string with a new reflective Gson
+ * on every poll, with {@link GameStateDecoder} reading the bytes of the response in one pass.
+ * Not a unit test; run it with the test classpath, optionally with the width and height of the board:
+ * <pre>java -cp ... dtu.compute.RoborallyClient.online.GameStateDecodingBenchmark 40 40</pre>
+ */
+public class GameStateDecodingBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+    private static final long ROUND_NANOS = 1_000_000_000L;
+
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private interface Decoder {
+        GameTemplate decode(byte[] body) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 13;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        byte[] body = SampleGames.response(SampleGames.game(width, height, 6)).getBytes(StandardCharsets.UTF_8);
+        System.out.println("Board " + width + "x" + height + ", response of " + body.length + " bytes");
+
+        Gson templateGson = SampleGames.templateGson();
+        run("tree + reflective Gson", body, bytes -> {
+            Gson gson = new GsonBuilder().registerTypeAdapter(FieldAction.class, new Adapter<FieldAction>()).setPrettyPrinting().setLenient().create();
+            JsonObject response = new JsonParser().parse(new String(bytes, StandardCharsets.UTF_8)).getAsJsonObject();
+            return gson.fromJson(response.get("gameState").getAsString(), GameTemplate.class);
+        });
+        run("GameStateDecoder", body, bytes -> GameStateDecoder.decode(new ByteArrayInputStream(bytes), templateGson).gameState);
+    }
+
+    private static void run(String name, byte[] body, Decoder decoder) throws IOException {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            measure(body, decoder);
+        }
+        double bestNanos = Double.MAX_VALUE;
+        double bytes = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            double[] result = measure(body, decoder);
+            bestNanos = Math.min(bestNanos, result[0]);
+            bytes = result[1];
+        }
+        System.out.printf("%-24s %10.1f us/op %12.0f bytes/op%n", name, bestNanos / 1000, bytes);
+    }
+
+    /**
+     * @return the time and bytes allocated per decoding, over one round
+     */
+    private static double[] measure(byte[] body, Decoder decoder) throws IOException {
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long operations = 0;
+        int sink = 0;
+        while (System.nanoTime() - start < ROUND_NANOS) {
+            sink += decoder.decode(body).players.size();
+            operations++;
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        if (sink == 0) System.out.println();
+        return new double[] {(double) elapsed / operations, (double) allocated / operations};
+    }
+}
@@ -0,0 +1,169 @@
+package dtu.compute.RoborallyClient.online;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import dtu.compute.RoborallyClient.fileaccess.SampleGames;
+import dtu.compute.RoborallyClient.fileaccess.model.BoardTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests applying deltas computed by the {@link GameStateStandIn} to the game state they were computed from.
+ */
+class GameStateDeltaTest {
+
+    private final Gson gson = SampleGames.templateGson();
+    private final GameTemplate base = SampleGames.game(8, 6, 3);
+    private final GameTemplate next = activationStep(base);
+
+    /**
+     * @return the game state after one step of the activation phase: a robot moved, a player
+     * drew a card and the player on the first energy cube field took the cube
+     */
+    static GameTemplate activationStep(GameTemplate gameState) {
+        GameTemplate next = gameState.clone();
+        next.timeStamp = gameState.timeStamp + "+1";
+        next.playPhase = 2;
+        next.step = gameState.step + 1;
+        next.currentPlayer = (gameState.currentPlayer + 1) % gameState.players.size();
+        next.players.get(0).xPosition++;
+        next.players.get(1).drawPile.remove(0);
+        next.players.get(1).energyBank++;
+        Gson gson = SampleGames.templateGson();
+        next.board = gson.fromJson(gson.toJson(gameState.board), BoardTemplate.class);
+        next.board.spaces.get(6).player = 0;
+        return next;
+    }
+
+    private void assertSameGameState(GameTemplate expected, GameTemplate actual) {
+        assertEquals(gson.toJsonTree(expected), gson.toJsonTree(actual));
+    }
+
+    @Test
+    void deltaToTheMatchingBaseGivesTheNextState() {
+        String before = gson.toJson(base);
+        GameTemplate applied = GameStateDelta.apply(base, GameStateStandIn.delta(base, next));
+        assertNotNull(applied);
+        assertSameGameState(next, applied);
+        // the game state shown is not changed
+        assertEquals(before, gson.toJson(base));
+    }
+
+    @Test
+    void onlyPatchedSpacesAreCopied() {
+        GameTemplate applied = GameStateDelta.apply(base, GameStateStandIn.delta(base, next));
+        assertNotNull(applied);
+        assertSame(base.board.spaces.get(0), applied.board.spaces.get(0));
+        assertNotSame(base.board.spaces.get(6), applied.board.spaces.get(6));
+        assertEquals(-1, base.board.spaces.get(6).player);
+        assertEquals(0, applied.board.spaces.get(6).player);
+    }
+
+    @Test
+    void fieldsLeftOutOfTheNextStateAreCleared() {
+        base.winnerName = "player0";
+        GameTemplate won = base.clone();
+        won.timeStamp = base.timeStamp + "+1";
+        won.winnerName = null;
+        GameTemplate applied = GameStateDelta.apply(base, GameStateStandIn.delta(base, won));
+        assertNotNull(applied);
+        assertNull(applied.winnerName);
+    }
+
+    @Test
+    void deltaWithoutChangesGivesTheSameState() {
+        GameTemplate applied = GameStateDelta.apply(base, GameStateStandIn.delta(base, base));
+        assertSameGameState(base, applied);
+    }
+
+    @Test
+    void deltaToAnotherBaseIsRejected() {
+        JsonObject delta = GameStateStandIn.delta(base, next);
+        delta.addProperty("base", "some other version");
+        assertNull(GameStateDelta.apply(base, delta));
+    }
+
+    @Test
+    void deltaWithoutBaseIsRejected() {
+        JsonObject delta = GameStateStandIn.delta(base, next);
+        delta.remove("base");
+        assertNull(GameStateDelta.apply(base, delta));
+    }
+
+    @Test
+    void checksumMismatchIsRejected() {
+        JsonObject delta = GameStateStandIn.delta(base, next);
+        delta.addProperty("checksum", "0");
+        assertNull(GameStateDelta.apply(base, delta));
+    }
+
+    @Test
+    void deltaWithoutChecksumIsRejected() {
+        JsonObject delta = GameStateStandIn.delta(base, next);
+        delta.remove("checksum");
+        assertNull(GameStateDelta.apply(base, delta));
+    }
+
+    @Test
+    void unknownPlayerIsRejected() {
+        JsonObject delta = GameStateStandIn.delta(base, next);
+        delta.getAsJsonArray("players").get(0).getAsJsonObject().addProperty("id", 99);
+        assertNull(GameStateDelta.apply(base, delta));
+    }
+
+    @Test
+    void spaceOutsideTheBoardIsRejected() {
+        JsonObject delta = GameStateStandIn.delta(base, next);
+        JsonObject space = delta.getAsJsonArray("spaces").get(0).getAsJsonObject();
+        space.addProperty("x", base.board.width);
+        assertNull(GameStateDelta.apply(base, delta));
+        space.addProperty("x", 0);
+        space.addProperty("y", -1);
+        assertNull(GameStateDelta.apply(base, delta));
+    }
+
+    @Test
+    void malformedDeltasAreRejected() {
+        JsonObject delta = GameStateStandIn.delta(base, next);
+        delta.getAsJsonArray("players").get(0).getAsJsonObject().addProperty("id", "first");
+        assertNull(GameStateDelta.apply(base, delta));
+
+        delta = GameStateStandIn.delta(base, next);
+        delta.getAsJsonArray("players").get(0).getAsJsonObject().remove("id");
+        assertNull(GameStateDelta.apply(base, delta));
+
+        delta = GameStateStandIn.delta(base, next);
+        delta.getAsJsonArray("spaces").get(0).getAsJsonObject().remove("y");
+        assertNull(GameStateDelta.apply(base, delta));
+
+        delta = GameStateStandIn.delta(base, next);
+        delta.add("base", new JsonObject());
+        assertNull(GameStateDelta.apply(base, delta));
+
+        delta = GameStateStandIn.delta(base, next);
+        delta.addProperty("players", "all of them");
+        assertNull(GameStateDelta.apply(base, delta));
+
+        delta = GameStateStandIn.delta(base, next);
+        JsonArray spaces = new JsonArray();
+        spaces.add(1);
+        delta.add("spaces", spaces);
+        assertNull(GameStateDelta.apply(base, delta));
+    }
+
+    @Test
+    void checksumDependsOnTheContent() {
+        assertEquals(GameStateDelta.checksum(base), GameStateDelta.checksum(base.clone()));
+        GameTemplate changed = base.clone();
+        changed.players.get(2).energyBank++;
+        assertNotEquals(GameStateDelta.checksum(base), GameStateDelta.checksum(changed));
+    }
+}
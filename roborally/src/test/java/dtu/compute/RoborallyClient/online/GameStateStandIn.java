@@ -0,0 +1,163 @@
+package dtu.compute.RoborallyClient.online;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dtu.compute.RoborallyClient.fileaccess.SampleGames;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A local stand-in for the game state endpoint of the server, for the tests of the delta sync.
+ * It keeps every version of the game state it has served, and answers a request naming one of
+ * them with ?{@link GameStateDelta#QUERY}= with a delta to the current version, like the server.
+ * It also computes the deltas for the tests which do not need a server, see {@link #delta}.
+ */
+class GameStateStandIn implements AutoCloseable {
+
+    private static final Gson gson = SampleGames.templateGson();
+
+    private final HttpServer server;
+    private final Map<String, GameTemplate> versions = new ConcurrentHashMap<>();
+    private volatile GameTemplate current;
+    private volatile boolean corruptChecksums;
+    private volatile int lastResponseBytes;
+
+    GameStateStandIn(GameTemplate gameState) throws IOException {
+        setGameState(gameState);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/lobbies/1/game/state/a", this::gameState);
+        server.start();
+    }
+
+    URI gameStateUri() {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + "/lobbies/1/game/state/a");
+    }
+
+    /**
+     * Makes the given game state the current version; its time stamp names the version.
+     */
+    void setGameState(GameTemplate gameState) {
+        versions.put(gameState.timeStamp, gameState.clone());
+        current = gameState.clone();
+    }
+
+    /**
+     * Sends deltas whose checksum does not match, like a server with a bug in its deltas.
+     */
+    void setCorruptChecksums(boolean corruptChecksums) {
+        this.corruptChecksums = corruptChecksums;
+    }
+
+    /**
+     * @return the size of the body of the last response in bytes
+     */
+    int getLastResponseBytes() {
+        return lastResponseBytes;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void gameState(HttpExchange exchange) throws IOException {
+        String since = null;
+        String query = exchange.getRequestURI().getRawQuery();
+        for (String parameter : query == null ? new String[0] : query.split("&")) {
+            String[] pair = parameter.split("=", 2);
+            if (pair[0].equals(GameStateDelta.QUERY)) since = URLDecoder.decode(pair[1], StandardCharsets.UTF_8);
+        }
+        GameTemplate gameState = current;
+        GameTemplate base = since != null ? versions.get(since) : null;
+        String body;
+        if (base != null) {
+            JsonObject delta = delta(base, gameState);
+            if (corruptChecksums) delta.addProperty("checksum", "0");
+            JsonObject response = new JsonObject();
+            response.add("delta", delta);
+            response.add("lasers", new JsonArray());
+            body = response.toString();
+        } else {
+            body = SampleGames.response(gameState);
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        lastResponseBytes = bytes.length;
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    /**
+     * @return the delta from one version of a game state to another, in the format of {@link GameStateDelta}
+     */
+    static JsonObject delta(GameTemplate from, GameTemplate to) {
+        JsonObject delta = new JsonObject();
+        delta.addProperty("base", from.timeStamp);
+        delta.addProperty("checksum", GameStateDelta.checksum(to));
+        JsonObject game = changes(gameWithoutBoard(from), gameWithoutBoard(to));
+        game.addProperty("timeStamp", to.timeStamp);
+        delta.add("game", game);
+
+        JsonArray players = new JsonArray();
+        for (int i = 0; i < to.players.size(); i++) {
+            JsonObject changes = changes(gson.toJsonTree(from.players.get(i)).getAsJsonObject(), gson.toJsonTree(to.players.get(i)).getAsJsonObject());
+            if (changes.size() > 0) {
+                changes.addProperty("id", to.players.get(i).id);
+                players.add(changes);
+            }
+        }
+        if (players.size() > 0) delta.add("players", players);
+
+        JsonArray spaces = new JsonArray();
+        for (int i = 0; i < to.board.spaces.size(); i++) {
+            JsonObject changes = changes(gson.toJsonTree(from.board.spaces.get(i)).getAsJsonObject(), gson.toJsonTree(to.board.spaces.get(i)).getAsJsonObject());
+            if (changes.size() > 0) {
+                changes.addProperty("x", to.board.spaces.get(i).x);
+                changes.addProperty("y", to.board.spaces.get(i).y);
+                spaces.add(changes);
+            }
+        }
+        if (spaces.size() > 0) delta.add("spaces", spaces);
+        return delta;
+    }
+
+    private static JsonObject gameWithoutBoard(GameTemplate gameState) {
+        GameTemplate copy = gameState.clone();
+        copy.board = null;
+        copy.players = List.of();
+        return gson.toJsonTree(copy).getAsJsonObject();
+    }
+
+    /**
+     * @return the members which differ between the two objects, with null for those left out of the second
+     */
+    private static JsonObject changes(JsonObject from, JsonObject to) {
+        JsonObject changes = new JsonObject();
+        Set<String> names = new HashSet<>(from.keySet());
+        names.addAll(to.keySet());
+        for (String name : names) {
+            JsonElement value = to.has(name) ? to.get(name) : JsonNull.INSTANCE;
+            if (!value.equals(from.has(name) ? from.get(name) : JsonNull.INSTANCE)) {
+                changes.add(name, value);
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,184 @@
+package dtu.compute.RoborallyClient.online;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the long-poll parameters and pacing against a local stand-in server, which holds a
+ * request until its version differs from the one the client has or the wait time is over.
+ */
+class LongPollTest {
+
+    private static final Duration MIN_INTERVAL = Duration.ofMillis(400);
+
+    private HttpServer server;
+    private volatile int version = 1;
+    /** Whether the stand-in holds requests; a server without long-poll support answers right away. */
+    private volatile boolean holding = true;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/lobbies/1", this::lobbyState);
+        server.createContext("/silent", exchange -> {
+            // never answers
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+    }
+
+    private void lobbyState(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        long wait = 0;
+        String since = null;
+        for (String parameter : query == null ? new String[0] : query.split("&")) {
+            String[] pair = parameter.split("=", 2);
+            if (pair[0].equals("wait")) wait = Long.parseLong(pair[1]);
+            if (pair[0].equals("since")) since = pair[1];
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(holding ? wait : 0);
+        while (String.valueOf(version).equals(since) && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        byte[] body = ("{\"version\":\"" + version + "\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    @Test
+    void uriAsksToHoldSinceTheVersion() {
+        LongPoll longPoll = new LongPoll(Duration.ofMillis(25000), MIN_INTERVAL);
+        URI resource = URI.create("http://localhost:8080/lobbies/1");
+        assertEquals(URI.create("http://localhost:8080/lobbies/1?wait=25000"), longPoll.uri(resource, null));
+        assertEquals(URI.create("http://localhost:8080/lobbies/1?wait=25000&since=a+b%26c"), longPoll.uri(resource, "a b&c"));
+    }
+
+    @Test
+    void timeoutIsTheHoldWithGrace() {
+        LongPoll longPoll = new LongPoll(Duration.ofMillis(2000), MIN_INTERVAL);
+        assertTrue(longPoll.timeout().compareTo(Duration.ofMillis(2000)) > 0);
+    }
+
+    @Test
+    void heldRequestReturnsOnChange() throws Exception {
+        LongPoll longPoll = new LongPoll(Duration.ofSeconds(10), MIN_INTERVAL);
+        long start = System.nanoTime();
+        new Thread(() -> {
+            sleep(300);
+            version = 2;
+        }).start();
+        Response<JsonObject> response = RequestCenter.getRequestJsonAsync(longPoll.uri(uri("/lobbies/1"), "1"), longPoll.timeout())
+                .get(15, TimeUnit.SECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals("2", LongPoll.versionOf(response.getItem()));
+        assertTrue(elapsed >= 250 && elapsed < 5000, "held for " + elapsed + " ms");
+        assertEquals(0, longPoll.delayAfter(true, start));
+    }
+
+    @Test
+    void heldRequestWithoutChangeIsReissuedRightAway() throws Exception {
+        LongPoll longPoll = new LongPoll(Duration.ofMillis(600), MIN_INTERVAL);
+        long start = System.nanoTime();
+        Response<JsonObject> response = RequestCenter.getRequestJsonAsync(longPoll.uri(uri("/lobbies/1"), "1"), longPoll.timeout())
+                .get(10, TimeUnit.SECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals("1", LongPoll.versionOf(response.getItem()));
+        assertTrue(elapsed >= 550, "held for " + elapsed + " ms");
+        // the hold took longer than the minimum interval, so there is no pause
+        assertEquals(0, longPoll.delayAfter(false, start));
+    }
+
+    @Test
+    void serverWithoutHoldingIsPacedWithJitter() throws Exception {
+        holding = false;
+        LongPoll longPoll = new LongPoll(Duration.ofSeconds(10), MIN_INTERVAL);
+        for (int i = 0; i < 20; i++) {
+            long start = System.nanoTime();
+            Response<JsonObject> response = RequestCenter.getRequestJsonAsync(longPoll.uri(uri("/lobbies/1"), "1"), longPoll.timeout())
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals("1", LongPoll.versionOf(response.getItem()));
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long delay = longPoll.delayAfter(false, start);
+            // the rest of the minimum interval, plus up to a quarter of it as jitter
+            assertTrue(delay > 0, "no pause after an unheld answer");
+            assertTrue(delay <= MIN_INTERVAL.toMillis() - elapsed + MIN_INTERVAL.toMillis() / 4 + 1, "paused " + delay + " ms");
+        }
+    }
+
+    @Test
+    void unansweredRequestTimesOut() {
+        LongPoll longPoll = new LongPoll(Duration.ofMillis(100), MIN_INTERVAL);
+        ExecutionException e = assertThrows(ExecutionException.class, () ->
+                RequestCenter.getRequestJsonAsync(longPoll.uri(uri("/silent"), null), longPoll.timeout()).get(30, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof HttpTimeoutException, String.valueOf(e.getCause()));
+    }
+
+    @Test
+    void failuresBackOffExponentiallyWithFullJitter() {
+        LongPoll longPoll = new LongPoll(Duration.ofSeconds(10), MIN_INTERVAL);
+        long ceiling = MIN_INTERVAL.toMillis();
+        long largest = 0;
+        for (int failure = 0; failure < 40; failure++) {
+            long delay = longPoll.delayAfterFailure();
+            assertTrue(delay >= 0 && delay <= Math.min(ceiling, 10000), "failure " + failure + " paused " + delay + " ms");
+            largest = Math.max(largest, delay);
+            ceiling *= 2;
+        }
+        // with full jitter some of the 40 pauses come close to the cap
+        assertTrue(largest > 5000, "largest pause " + largest + " ms");
+    }
+
+    @Test
+    void successResetsTheBackOff() {
+        LongPoll longPoll = new LongPoll(Duration.ofSeconds(10), MIN_INTERVAL);
+        for (int failure = 0; failure < 10; failure++) {
+            longPoll.delayAfterFailure();
+        }
+        longPoll.delayAfter(true, System.nanoTime());
+        for (int i = 0; i < 20; i++) {
+            assertTrue(longPoll.delayAfterFailure() <= MIN_INTERVAL.toMillis());
+            longPoll.delayAfter(true, System.nanoTime());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
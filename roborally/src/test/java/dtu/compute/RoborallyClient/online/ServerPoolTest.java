@@ -0,0 +1,118 @@
+package dtu.compute.RoborallyClient.online;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the failover of a {@link ServerPool} of servers which are never contacted: the servers
+ * are only marked as down by failed requests, and up again by the test.
+ */
+class ServerPoolTest {
+
+    private final ServerPool pool = ServerPool.of("http://a:8080/api", "http://b:8080/roborally/", "http://a:8080/other");
+    private final ServerPool.Node a = pool.nodes().get(0);
+    private final ServerPool.Node b = pool.nodes().get(1);
+    private final ServerPool.Node other = pool.nodes().get(2);
+
+    private static final URI LOBBIES = URI.create("http://a:8080/api/lobbies?offset=0&limit=20");
+    private static final URI GAME_STATE = URI.create("http://a:8080/api/lobbies/7/game/state");
+
+    private void takeDown(ServerPool.Node node) {
+        URI uri = URI.create(node.getLocation() + "/lobbies");
+        assertTrue(pool.failedRequest(uri, new CompletionException(new ConnectException("refused"))));
+        assertFalse(node.isHealthy());
+    }
+
+    @Test
+    void serversOnTheSameHostAreToldApartByTheirBasePath() {
+        assertEquals(3, pool.nodes().size());
+        assertEquals("http://b:8080/roborally", b.getLocation());
+        assertSame(a, pool.nodeOf(LOBBIES));
+        assertSame(other, pool.nodeOf(URI.create("http://a:8080/other/lobbies")));
+        assertSame(b, pool.nodeOf(URI.create("ws://b:8080/roborally/lobbies/7/game/state/stream/x")));
+        assertNull(pool.nodeOf(URI.create("http://a:8080/apiary/lobbies")));
+        assertNull(pool.nodeOf(URI.create("http://c:8080/api/lobbies")));
+    }
+
+    @Test
+    void duplicateServersAreLeftOut() {
+        assertEquals(1, ServerPool.of("http://a:8080", "http://a:8080/", " ").nodes().size());
+    }
+
+    @Test
+    void lobbyResourcesAreThoseBelowALobby() {
+        assertFalse(ServerPool.isLobbyResource(a, LOBBIES));
+        assertFalse(ServerPool.isLobbyResource(a, URI.create("http://a:8080/api/lobbies")));
+        assertTrue(ServerPool.isLobbyResource(a, GAME_STATE));
+        assertTrue(ServerPool.isLobbyResource(a, URI.create("http://a:8080/api/lobbies/7/join")));
+        // a path below another server is not one of its lobbies
+        assertFalse(ServerPool.isLobbyResource(a, URI.create("http://a:8080/other/lobbies/7/join")));
+    }
+
+    @Test
+    void healthyServersKeepTheirRequests() {
+        assertSame(LOBBIES, pool.resolveUri(LOBBIES));
+        assertSame(GAME_STATE, pool.resolveUri(GAME_STATE));
+    }
+
+    @Test
+    void lobbyListOfADownServerGoesToTheSubstituteBelowItsBasePath() {
+        takeDown(a);
+        URI resolved = pool.resolveUri(LOBBIES);
+        assertTrue(resolved.toString().equals("http://b:8080/roborally/lobbies?offset=0&limit=20")
+                || resolved.toString().equals("http://a:8080/other/lobbies?offset=0&limit=20"), resolved.toString());
+        // all requests of the server go to the same substitute
+        assertEquals(resolved, pool.resolveUri(LOBBIES));
+    }
+
+    @Test
+    void substituteKeepsTheSchemeOfTheRequest() {
+        takeDown(a);
+        takeDown(other);
+        URI resolved = pool.resolveUri(URI.create("ws://a:8080/api/lobbies?offset=0"));
+        assertEquals("ws://b:8080/roborally/lobbies?offset=0", resolved.toString());
+    }
+
+    @Test
+    void lobbyRequestsStayOnTheirHomeServer() {
+        takeDown(a);
+        assertSame(GAME_STATE, pool.resolveUri(GAME_STATE));
+        // the failure marks the server as down but is not sent again
+        assertFalse(pool.failedRequest(GAME_STATE, new ConnectException("refused")));
+        assertEquals(2, a.getFailureCount());
+    }
+
+    @Test
+    void onlyConnectionFailuresTakeAServerDown() {
+        assertFalse(pool.failedRequest(LOBBIES, new HttpTimeoutException("slow")));
+        assertFalse(pool.failedRequest(LOBBIES, new IOException("reset")));
+        assertTrue(a.isHealthy());
+    }
+
+    @Test
+    void serverUpAgainGetsItsRequestsBack() {
+        takeDown(a);
+        assertFalse(pool.resolveUri(LOBBIES).equals(LOBBIES));
+        pool.markUp(a);
+        assertSame(LOBBIES, pool.resolveUri(LOBBIES));
+    }
+
+    @Test
+    void nothingIsSentAgainWhenEveryServerIsDown() {
+        takeDown(a);
+        takeDown(b);
+        assertFalse(pool.failedRequest(URI.create("http://a:8080/other/lobbies"), new ConnectException("refused")));
+        assertSame(LOBBIES, pool.resolveUri(LOBBIES));
+    }
+}
@@ -0,0 +1,125 @@
+package dtu.compute.RoborallyClient.online;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A minimal in-process WebSocket server for the tests of the game state stream. It accepts one
+ * connection, answers the opening handshake and then lets the test push text messages and close
+ * the connection. Only unfragmented frames of less than 126 bytes are sent.
+ */
+class WebSocketStandIn implements AutoCloseable {
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final ServerSocket serverSocket;
+    private final CountDownLatch connected = new CountDownLatch(1);
+    private volatile Socket socket;
+
+    WebSocketStandIn() throws IOException {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "websocket-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    URI uri(String path) {
+        return URI.create("ws://localhost:" + serverSocket.getLocalPort() + path);
+    }
+
+    /**
+     * Waits for the client to finish the opening handshake.
+     */
+    boolean awaitConnection() throws InterruptedException {
+        return connected.await(5, TimeUnit.SECONDS);
+    }
+
+    void sendText(String text) throws IOException {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        OutputStream out = socket.getOutputStream();
+        out.write(0x81);
+        out.write(payload.length);
+        out.write(payload);
+        out.flush();
+    }
+
+    /**
+     * Sends a close frame with the given status code, like a server ending the stream.
+     */
+    void sendClose(int statusCode) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(new byte[] {(byte) 0x88, 2, (byte) (statusCode >> 8), (byte) statusCode});
+        out.flush();
+    }
+
+    /**
+     * Drops the connection without a close frame, like a server going away.
+     */
+    void drop() throws IOException {
+        socket.close();
+    }
+
+    /**
+     * @return the opcode of the next frame sent by the client, or -1 if the connection ended
+     */
+    int readOpcode() throws IOException {
+        InputStream in = socket.getInputStream();
+        int first = in.read();
+        if (first < 0) return -1;
+        int length = in.read() & 0x7F;
+        if (length == 126) length = (in.read() << 8) | in.read();
+        // frames of the client are masked
+        in.readNBytes(4 + length);
+        return first & 0x0F;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        if (socket != null) socket.close();
+    }
+
+    private void accept() {
+        try {
+            Socket accepted = serverSocket.accept();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(accepted.getInputStream(), StandardCharsets.ISO_8859_1));
+            String key = null;
+            for (String line = reader.readLine(); line != null && !line.isEmpty(); line = reader.readLine()) {
+                if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+                    key = line.substring(line.indexOf(':') + 1).trim();
+                }
+            }
+            String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                    + "Upgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + accept(key) + "\r\n\r\n";
+            accepted.getOutputStream().write(response.getBytes(StandardCharsets.ISO_8859_1));
+            accepted.getOutputStream().flush();
+            socket = accepted;
+            connected.countDown();
+        } catch (IOException e) {
+            // closed before a client connected
+        }
+    }
+
+    private static String accept(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + GUID).getBytes(StandardCharsets.ISO_8859_1));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
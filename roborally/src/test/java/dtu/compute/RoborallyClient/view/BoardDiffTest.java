@@ -0,0 +1,98 @@
+package dtu.compute.RoborallyClient.view;
+
+import dtu.compute.RoborallyClient.fields.EnergyCubeField;
+import dtu.compute.RoborallyClient.fileaccess.SampleGames;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.SpaceTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests which spaces {@link BoardDiff} finds dirty between two game states.
+ */
+class BoardDiffTest {
+
+    private final GameTemplate before = game();
+
+    private static GameTemplate game() {
+        GameTemplate gameState = SampleGames.game(8, 6, 3);
+        // player 0 stands on (1, 1)
+        gameState.board.spaces.get(index(gameState, 1, 1)).player = 0;
+        return gameState;
+    }
+
+    private static int index(GameTemplate gameState, int x, int y) {
+        return x * gameState.board.height + y;
+    }
+
+    /**
+     * @return a copy of the game state with its own spaces, which can be changed without changing the original
+     */
+    private static GameTemplate copy(GameTemplate gameState) {
+        GameTemplate copy = gameState.clone();
+        copy.board = gameState.board.clone();
+        copy.board.spaces.replaceAll(SpaceTemplate::clone);
+        return copy;
+    }
+
+    private static BitSet cells(GameTemplate gameState, int... xy) {
+        BitSet cells = new BitSet();
+        for (int i = 0; i < xy.length; i += 2) {
+            cells.set(index(gameState, xy[i], xy[i + 1]));
+        }
+        return cells;
+    }
+
+    @Test
+    void nothingChangedMeansNothingDirty() {
+        assertTrue(BoardDiff.dirtyCells(before, copy(before)).isEmpty());
+    }
+
+    @Test
+    void robotMovingDirtiesTheSpaceItLeftAndTheOneItArrivedOn() {
+        GameTemplate after = copy(before);
+        after.board.spaces.get(index(after, 1, 1)).player = -1;
+        after.board.spaces.get(index(after, 2, 1)).player = 0;
+        after.players.get(0).xPosition = 2;
+        assertEquals(cells(after, 1, 1, 2, 1), BoardDiff.dirtyCells(before, after));
+    }
+
+    @Test
+    void robotTurningDirtiesItsSpace() {
+        GameTemplate after = copy(before);
+        after.players.get(0).heading = (after.players.get(0).heading + 1) % 4;
+        assertEquals(cells(after, 1, 1), BoardDiff.dirtyCells(before, after));
+    }
+
+    @Test
+    void energyCubeTakenDirtiesTheEnergyField() {
+        GameTemplate after = copy(before);
+        int field = -1;
+        for (int i = 0; i < after.board.spaces.size() && field < 0; i++) {
+            SpaceTemplate space = after.board.spaces.get(i);
+            for (int j = 0; j < space.actions.size(); j++) {
+                if (space.actions.get(j) instanceof EnergyCubeField) {
+                    EnergyCubeField empty = new EnergyCubeField();
+                    empty.setEnergyCubes(0);
+                    space.actions.set(j, empty);
+                    field = i;
+                }
+            }
+        }
+        assertTrue(field >= 0);
+        BitSet expected = new BitSet();
+        expected.set(field);
+        assertEquals(expected, BoardDiff.dirtyCells(before, after));
+    }
+
+    @Test
+    void everythingIsDirtyWithoutAPreviousStateOrForAnotherBoard() {
+        GameTemplate other = SampleGames.game(9, 6, 3);
+        assertEquals(other.board.spaces.size(), BoardDiff.dirtyCells(before, other).cardinality());
+        assertEquals(before.board.spaces.size(), BoardDiff.dirtyCells(null, before).cardinality());
+    }
+}
@@ -0,0 +1,59 @@
+package dtu.compute.RoborallyClient.view;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests waiting for versions of the board with a {@link RenderBarrier}.
+ */
+class RenderBarrierTest {
+
+    private final RenderBarrier barrier = new RenderBarrier();
+
+    @Test
+    void versionsAreReservedInOrder() {
+        assertEquals(1, barrier.reserve());
+        assertEquals(2, barrier.reserve());
+        assertEquals(2, barrier.getReservedVersion());
+        assertEquals(0, barrier.getRenderedVersion());
+    }
+
+    @Test
+    void waitersCompleteWhenTheirVersionIsRendered() {
+        CompletableFuture<Void> first = barrier.whenRendered(barrier.reserve());
+        CompletableFuture<Void> second = barrier.whenRendered(barrier.reserve());
+        barrier.rendered(1);
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        barrier.rendered(2);
+        assertTrue(second.isDone());
+    }
+
+    @Test
+    void newerVersionCompletesTheOlderWaitersItCoalesced() {
+        CompletableFuture<Void> first = barrier.whenRendered(barrier.reserve());
+        CompletableFuture<Void> second = barrier.whenRendered(barrier.reserve());
+        CompletableFuture<Void> fourth = barrier.whenRendered(4);
+        barrier.reserve();
+        // only the newest of the first three versions was shown
+        barrier.rendered(3);
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertFalse(fourth.isDone());
+        assertEquals(3, barrier.getRenderedVersion());
+    }
+
+    @Test
+    void renderedVersionsAreCompletedRightAway() {
+        barrier.rendered(barrier.reserve());
+        assertTrue(barrier.whenRendered(1).isDone());
+        // an older version reported late does not move the rendered version back
+        barrier.rendered(0);
+        assertEquals(1, barrier.getRenderedVersion());
+    }
+}
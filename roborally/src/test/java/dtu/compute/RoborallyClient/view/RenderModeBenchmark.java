@@ -0,0 +1,238 @@
+package dtu.compute.RoborallyClient.view;
+
+import com.google.gson.Gson;
+import dtu.compute.RoborallyClient.fileaccess.SampleGames;
+import dtu.compute.RoborallyClient.fileaccess.model.BoardTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.GameTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.PlayerTemplate;
+import dtu.compute.RoborallyClient.fileaccess.model.SpaceTemplate;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Compares the render modes of the board on a 6-player game: the time to build the board, the
+ * number of nodes, and for a series of game states in which every robot moves one space, the
+ * time of the update and of the layout of the pulse that shows it. The virtualized board is
+ * also panned back and forth by a space on every step, so the recycling of its space views is measured.
+ * Not a unit test, and it needs a display; run it with the test classpath, optionally with the
+ * width and height of the board:
+ * <pre>java -cp ... dtu.compute.RoborallyClient.view.RenderModeBenchmark 40 40</pre>
+ */
+public class RenderModeBenchmark {
+
+    private static final int WARMUP_STEPS = 100;
+    private static final int STEPS = 300;
+    private static final int SCENE_WIDTH = 1300;
+    private static final int SCENE_HEIGHT = 1000;
+
+    private static final Gson gson = SampleGames.templateGson();
+
+    /**
+     * A board drawn in one render mode, updated like {@link BoardView#updateView} does.
+     */
+    private static class Board {
+        Parent node;
+        Consumer<GameTemplate> update;
+        GameTemplate shown;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 13;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        System.out.println("Board " + width + "x" + height + ", 6 players, " + STEPS + " steps");
+
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+        Platform.setImplicitExit(false);
+        SpaceView.preloadImages();
+
+        for (RenderMode mode : RenderMode.values()) {
+            run(mode, SampleGames.game(width, height, 6));
+        }
+        Platform.exit();
+    }
+
+    private static void run(RenderMode mode, GameTemplate gameState) throws Exception {
+        placeRobots(gameState);
+        long[] layoutStart = new long[1];
+        long[] layoutNanos = new long[1];
+        CountDownLatch[] pulse = new CountDownLatch[1];
+        Stage[] stage = new Stage[1];
+        Board board = new Board();
+
+        long buildNanos = onFxThread(() -> {
+            long start = System.nanoTime();
+            build(mode, gameState, board);
+            long built = System.nanoTime() - start;
+            Scene scene = new Scene(board.node, SCENE_WIDTH, SCENE_HEIGHT);
+            scene.addPreLayoutPulseListener(() -> layoutStart[0] = System.nanoTime());
+            scene.addPostLayoutPulseListener(() -> {
+                CountDownLatch latch = pulse[0];
+                if (latch != null && latch.getCount() > 0) {
+                    layoutNanos[0] = System.nanoTime() - layoutStart[0];
+                    latch.countDown();
+                }
+            });
+            stage[0] = new Stage();
+            stage[0].setScene(scene);
+            stage[0].show();
+            return built;
+        });
+
+        GameTemplate current = gameState;
+        long updateTotal = 0;
+        long layoutTotal = 0;
+        long layoutMax = 0;
+        for (int step = 0; step < WARMUP_STEPS + STEPS; step++) {
+            GameTemplate next = step(current);
+            current = next;
+            CountDownLatch latch = new CountDownLatch(1);
+            double pan = step % 20 < 10 ? SpaceView.SPACE_SIZE : -SpaceView.SPACE_SIZE;
+            long updateNanos = onFxThread(() -> {
+                pulse[0] = latch;
+                long start = System.nanoTime();
+                board.update.accept(next);
+                if (board.node instanceof VirtualBoardView) {
+                    ((VirtualBoardView) board.node).panBy(pan, pan);
+                }
+                long updated = System.nanoTime() - start;
+                Platform.requestNextPulse();
+                return updated;
+            });
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("No pulse after step " + step);
+            }
+            if (step >= WARMUP_STEPS) {
+                updateTotal += updateNanos;
+                layoutTotal += layoutNanos[0];
+                layoutMax = Math.max(layoutMax, layoutNanos[0]);
+            }
+        }
+
+        int nodes = onFxThread(() -> countNodes(board.node));
+        System.out.printf("%-8s build %8.1f ms %7d nodes   update %.3f ms avg   layout %.3f ms avg / %.3f ms max%n",
+                mode, buildNanos / 1e6, nodes, updateTotal / 1e6 / STEPS, layoutTotal / 1e6 / STEPS, layoutMax / 1e6);
+        onFxThread(() -> {
+            stage[0].close();
+            return null;
+        });
+    }
+
+    private static void build(RenderMode mode, GameTemplate gameState, Board board) {
+        switch (mode) {
+            case NODES -> {
+                BoardTemplate template = gameState.board;
+                GridPane grid = new GridPane();
+                SpaceView[][] spaces = new SpaceView[template.height][template.width];
+                for (int x = 0; x < template.width; x++) {
+                    for (int y = 0; y < template.height; y++) {
+                        SpaceView spaceView = new SpaceView(gameState, template.spaces.get(x * template.height + y));
+                        spaces[y][x] = spaceView;
+                        grid.add(spaceView, x, y);
+                    }
+                }
+                board.node = grid;
+                board.update = next -> {
+                    BitSet dirtyCells = dirtyCells(board, next);
+                    for (int i = dirtyCells.nextSetBit(0); i >= 0; i = dirtyCells.nextSetBit(i + 1)) {
+                        spaces[i % template.height][i / template.height].updateView(next, next.board.spaces.get(i));
+                    }
+                };
+            }
+            case VIRTUAL -> {
+                VirtualBoardView view = new VirtualBoardView(gameState);
+                board.node = view;
+                board.update = next -> view.updateView(next, dirtyCells(board, next));
+            }
+            case CANVAS -> {
+                BoardRenderer view = new BoardRenderer(gameState);
+                board.node = view;
+                board.update = view::updateView;
+            }
+            case LAYERED -> {
+                LayeredBoardView view = new LayeredBoardView(gameState);
+                board.node = view;
+                board.update = next -> view.updateView(next, dirtyCells(board, next));
+            }
+        }
+        board.shown = gameState;
+        board.update.accept(gameState);
+    }
+
+    private static BitSet dirtyCells(Board board, GameTemplate next) {
+        BitSet dirtyCells = BoardDiff.dirtyCells(board.shown, next);
+        board.shown = next;
+        return dirtyCells;
+    }
+
+    /**
+     * @return the next game state, with every robot one space further east, wrapping around the board
+     */
+    private static GameTemplate step(GameTemplate gameState) {
+        GameTemplate next = gameState.clone();
+        next.board = gson.fromJson(gson.toJson(gameState.board), BoardTemplate.class);
+        next.step = gameState.step + 1;
+        for (PlayerTemplate player : next.players) {
+            player.xPosition = (player.xPosition + 1) % next.board.width;
+        }
+        placeRobots(next);
+        return next;
+    }
+
+    private static void placeRobots(GameTemplate gameState) {
+        for (SpaceTemplate space : gameState.board.spaces) {
+            space.player = -1;
+        }
+        for (int i = 0; i < gameState.players.size(); i++) {
+            PlayerTemplate player = gameState.players.get(i);
+            gameState.board.spaces.get(player.xPosition * gameState.board.height + player.yPosition).player = i;
+        }
+    }
+
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+
+    private interface FxTask<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * Runs the task on the JavaFX Application Thread and waits for its result.
+     */
+    private static <T> T onFxThread(FxTask<T> task) throws Exception {
+        Object[] result = new Object[1];
+        Exception[] error = new Exception[1];
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                result[0] = task.run();
+            } catch (Exception e) {
+                error[0] = e;
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+        if (error[0] != null) throw error[0];
+        @SuppressWarnings("unchecked")
+        T value = (T) result[0];
+        return value;
+    }
+}
@@ -0,0 +1,41 @@
+package dtu.compute.RoborallyClient.view;
+
+import dtu.compute.RoborallyClient.fileaccess.SampleGames;
+import dtu.compute.RoborallyClient.fileaccess.model.BoardTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests choosing the {@link RenderMode} of a board with and without -Droborally.renderMode.
+ */
+class RenderModeTest {
+
+    private final BoardTemplate smallBoard = SampleGames.board(13, 10);
+    private final BoardTemplate largeBoard = SampleGames.board(40, 40);
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("roborally.renderMode");
+    }
+
+    @Test
+    void defaultDependsOnTheSizeOfTheBoard() {
+        assertEquals(RenderMode.LAYERED, RenderMode.forBoard(smallBoard));
+        assertEquals(RenderMode.VIRTUAL, RenderMode.forBoard(largeBoard));
+    }
+
+    @Test
+    void propertyChoosesTheMode() {
+        System.setProperty("roborally.renderMode", "canvas");
+        assertEquals(RenderMode.CANVAS, RenderMode.forBoard(largeBoard));
+    }
+
+    @Test
+    void unknownModeFallsBackToTheDefault() {
+        System.setProperty("roborally.renderMode", "virtaul");
+        assertEquals(RenderMode.LAYERED, RenderMode.forBoard(smallBoard));
+        assertEquals(RenderMode.VIRTUAL, RenderMode.forBoard(largeBoard));
+    }
+}